@@ -0,0 +1,82 @@
+package com.uetty.common.tool.algorithm;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * int[]排序的基准测试
+ * <p>SORT_TOOL_QUICK：SortTool.quickSort(int[])；SORT_TOOL_PARALLEL：SortTool.parallelQuickSort(int[])；RADIX：RadixSort；
+ * ARRAYS：Arrays.sort（基准）；ARRAYS_PARALLEL：Arrays.parallelSort（基准）</p>
+ * <p>java -jar target/common-tool-benchmarks.jar ArraySortBenchmark -prof gc -prof com.uetty.common.tool.benchmark.PeakHeapProfiler</p>
+ * @author : Vince
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ArraySortBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"RANDOM", "SORTED", "REVERSED", "DUPLICATES", "ORGAN_PIPE"})
+    public String distribution;
+
+    @Param({"SORT_TOOL_QUICK", "SORT_TOOL_PARALLEL", "RADIX", "ARRAYS", "ARRAYS_PARALLEL"})
+    public String algorithm;
+
+    private int[] source;
+    private int[] array;
+    private Consumer<int[]> sorter;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        source = SortInputs.generate(distribution, size);
+        sorter = sorter(algorithm);
+    }
+
+    @Setup(Level.Invocation)
+    public void copy() {
+        array = source.clone();
+    }
+
+    @Benchmark
+    public int[] sort() {
+        sorter.accept(array);
+        return array;
+    }
+
+    private static Consumer<int[]> sorter(String algorithm) {
+        switch (algorithm) {
+            case "SORT_TOOL_QUICK":
+                return SortTool::quickSort;
+            case "SORT_TOOL_PARALLEL":
+                return SortTool::parallelQuickSort;
+            case "RADIX":
+                // 同一个实例，辅助数组在各次调用间复用
+                return new RadixSort()::sort;
+            case "ARRAYS":
+                return Arrays::sort;
+            case "ARRAYS_PARALLEL":
+                return Arrays::parallelSort;
+            default:
+                throw new IllegalArgumentException("unknown algorithm: " + algorithm);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.uetty.common.tool.algorithm;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 对象列表（List&lt;Integer&gt;）排序的基准测试
+ * <p>SORT_TOOL_QUICK：SortTool.quickSort；MULTI_QUICK：MultiQuickSort；HEAP：HeapSort；
+ * PARALLEL_MERGE：ParallelMergeSort；COLLECTIONS：Collections.sort（基准）</p>
+ * <p>SortTool.quickSort遇到大量相等的数据时会反复洗牌无法结束，DUPLICATES分布下数据量超过500时该组合直接报错跳过</p>
+ * <p>java -jar target/common-tool-benchmarks.jar ListSortBenchmark -prof gc -prof com.uetty.common.tool.benchmark.PeakHeapProfiler</p>
+ * @author : Vince
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ListSortBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    @Param({"RANDOM", "SORTED", "REVERSED", "DUPLICATES", "ORGAN_PIPE"})
+    public String distribution;
+
+    @Param({"SORT_TOOL_QUICK", "MULTI_QUICK", "HEAP", "PARALLEL_MERGE", "COLLECTIONS"})
+    public String algorithm;
+
+    private List<Integer> source;
+    private List<Integer> list;
+    private Consumer<List<Integer>> sorter;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        source = SortInputs.boxed(SortInputs.generate(distribution, size));
+        sorter = sorter(algorithm);
+    }
+
+    @Setup(Level.Invocation)
+    public void copy() {
+        list = new ArrayList<>(source);
+    }
+
+    @Benchmark
+    public List<Integer> sort() {
+        sorter.accept(list);
+        return list;
+    }
+
+    private Consumer<List<Integer>> sorter(String algorithm) {
+        switch (algorithm) {
+            case "SORT_TOOL_QUICK":
+                if ("DUPLICATES".equals(distribution) && size > 500) {
+                    throw new IllegalStateException("SortTool.quickSort does not terminate on many duplicates");
+                }
+                return SortTool::quickSort;
+            case "MULTI_QUICK":
+                return SortTool::multiQuickSort;
+            case "HEAP":
+                return list -> HeapSort.sort(list, Integer::compare);
+            case "PARALLEL_MERGE":
+                return list -> ParallelMergeSort.sort(list, Comparator.naturalOrder());
+            case "COLLECTIONS":
+                return Collections::sort;
+            default:
+                throw new IllegalArgumentException("unknown algorithm: " + algorithm);
+        }
+    }
+}
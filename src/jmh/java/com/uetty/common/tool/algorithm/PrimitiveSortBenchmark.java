@@ -0,0 +1,161 @@
+package com.uetty.common.tool.algorithm;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SortTool中装箱（List&lt;Integer&gt;）与基本类型数组排序的对比
+ * <p>每种元素类型一个State，每次调用前只拷贝本次要排序的那份未排序数据（Level.Invocation），数据量足够大时拷贝的影响可以忽略</p>
+ * <p>java -jar target/common-tool-benchmarks.jar PrimitiveSortBenchmark -prof gc</p>
+ * @author : Vince
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PrimitiveSortBenchmark {
+
+    /**
+     * 未排序的原始数据，每个size生成一次
+     */
+    @State(Scope.Benchmark)
+    public static class Source {
+
+        @Param({"100000", "1000000", "10000000"})
+        public int size;
+
+        int[] values;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            Random random = new Random(size);
+            values = new int[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = random.nextInt();
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class IntData {
+        int[] values;
+
+        @Setup(Level.Invocation)
+        public void copy(Source source) {
+            values = source.values.clone();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class LongData {
+        long[] values;
+
+        @Setup(Level.Invocation)
+        public void copy(Source source) {
+            int[] origin = source.values;
+            values = new long[origin.length];
+            for (int i = 0; i < origin.length; i++) {
+                values[i] = origin[i];
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class DoubleData {
+        double[] values;
+
+        @Setup(Level.Invocation)
+        public void copy(Source source) {
+            int[] origin = source.values;
+            values = new double[origin.length];
+            for (int i = 0; i < origin.length; i++) {
+                values[i] = origin[i];
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class BoxedData {
+        List<Integer> values;
+
+        @Setup(Level.Invocation)
+        public void copy(Source source) {
+            int[] origin = source.values;
+            values = new ArrayList<>(origin.length);
+            for (int value : origin) {
+                values.add(value);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Integer> boxedQuickSort(BoxedData data) {
+        SortTool.quickSort(data.values);
+        return data.values;
+    }
+
+    @Benchmark
+    public List<Integer> boxedMultiQuickSort(BoxedData data) {
+        SortTool.multiQuickSort(data.values);
+        return data.values;
+    }
+
+    @Benchmark
+    public int[] intQuickSort(IntData data) {
+        SortTool.quickSort(data.values);
+        return data.values;
+    }
+
+    @Benchmark
+    public int[] intParallelQuickSort(IntData data) {
+        SortTool.parallelQuickSort(data.values);
+        return data.values;
+    }
+
+    @Benchmark
+    public long[] longQuickSort(LongData data) {
+        SortTool.quickSort(data.values);
+        return data.values;
+    }
+
+    @Benchmark
+    public double[] doubleQuickSort(DoubleData data) {
+        SortTool.quickSort(data.values);
+        return data.values;
+    }
+
+    /**
+     * 基准：JDK的双轴快速排序
+     */
+    @Benchmark
+    public int[] intArraysSort(IntData data) {
+        Arrays.sort(data.values);
+        return data.values;
+    }
+
+    /**
+     * 基准：JDK的并行排序
+     */
+    @Benchmark
+    public int[] intArraysParallelSort(IntData data) {
+        Arrays.parallelSort(data.values);
+        return data.values;
+    }
+}
@@ -0,0 +1,69 @@
+package com.uetty.common.tool.algorithm;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SortTool中O(n²)排序（选择排序、冒泡排序）的基准测试，数据量较小，以Collections.sort作为基准
+ * @author : Vince
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuadraticSortBenchmark {
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    @Param({"RANDOM", "SORTED", "REVERSED", "DUPLICATES", "ORGAN_PIPE"})
+    public String distribution;
+
+    private List<Integer> source;
+    private List<Integer> list;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        source = SortInputs.boxed(SortInputs.generate(distribution, size));
+    }
+
+    @Setup(Level.Invocation)
+    public void copy() {
+        list = new ArrayList<>(source);
+    }
+
+    @Benchmark
+    public List<Integer> selectionSort() {
+        SortTool.selectionSort(list);
+        return list;
+    }
+
+    @Benchmark
+    public List<Integer> bubbleSort() {
+        SortTool.bubbleSort(list);
+        return list;
+    }
+
+    @Benchmark
+    public List<Integer> collectionsSort() {
+        Collections.sort(list);
+        return list;
+    }
+}
@@ -0,0 +1,53 @@
+package com.uetty.common.tool.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 排序基准测试的输入数据生成，固定随机种子
+ * <p>RANDOM：随机；SORTED：升序；REVERSED：降序；DUPLICATES：只有16个不同的值；ORGAN_PIPE：先升后降</p>
+ * @author : Vince
+ */
+final class SortInputs {
+
+    private static final int DISTINCT_DUPLICATES = 16;
+
+    private SortInputs() {
+    }
+
+    static int[] generate(String distribution, int size) {
+        Random random = new Random(size * 31L + distribution.hashCode());
+        int[] data = new int[size];
+        for (int i = 0; i < size; i++) {
+            switch (distribution) {
+                case "RANDOM":
+                    data[i] = random.nextInt();
+                    break;
+                case "SORTED":
+                    data[i] = i;
+                    break;
+                case "REVERSED":
+                    data[i] = size - i;
+                    break;
+                case "DUPLICATES":
+                    data[i] = random.nextInt(DISTINCT_DUPLICATES);
+                    break;
+                case "ORGAN_PIPE":
+                    data[i] = i < size / 2 ? i : size - i;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown distribution: " + distribution);
+            }
+        }
+        return data;
+    }
+
+    static List<Integer> boxed(int[] data) {
+        List<Integer> list = new ArrayList<>(data.length);
+        for (int value : data) {
+            list.add(value);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,99 @@
+package com.uetty.common.tool.algorithm.diff;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试的输入文本生成
+ * <p>固定随机种子，文本由随机单词、空格、换行组成；相似文本按比例对单词做替换、删除、插入</p>
+ * @author : Vince
+ */
+final class DiffInputs {
+
+    private static final int VOCABULARY_SIZE = 2000;
+
+    private DiffInputs() {
+    }
+
+    /**
+     * @param size 文本的字符数
+     * @param similarity 相似度（0~1），每个单词以1 - similarity的概率被修改
+     * @return 两个文本
+     */
+    static String[] similarPair(int size, double similarity) {
+        Random random = new Random(size * 31L + (long) (similarity * 1000));
+        String[] vocabulary = vocabulary(random);
+        List<String> words = new ArrayList<>();
+        int length = 0;
+        while (length < size) {
+            String word = vocabulary[random.nextInt(vocabulary.length)];
+            words.add(word);
+            length += word.length() + 1;
+        }
+        StringBuilder text1 = new StringBuilder(size + 16);
+        StringBuilder text2 = new StringBuilder(size + 16);
+        for (int i = 0; i < words.size(); i++) {
+            String separator = i % 12 == 11 ? "\n" : " ";
+            text1.append(words.get(i)).append(separator);
+            if (random.nextDouble() >= similarity) {
+                int op = random.nextInt(3);
+                if (op == 0) { // 替换
+                    text2.append(vocabulary[random.nextInt(vocabulary.length)]).append(separator);
+                } else if (op == 1) { // 插入
+                    text2.append(vocabulary[random.nextInt(vocabulary.length)]).append(' ');
+                    text2.append(words.get(i)).append(separator);
+                }
+                // op == 2：删除
+            } else {
+                text2.append(words.get(i)).append(separator);
+            }
+        }
+        return new String[]{text1.toString(), text2.toString()};
+    }
+
+    private static String[] vocabulary(Random random) {
+        String[] vocabulary = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < vocabulary.length; i++) {
+            char[] chars = new char[2 + random.nextInt(7)];
+            for (int k = 0; k < chars.length; k++) {
+                chars[k] = (char) ('a' + random.nextInt(26));
+            }
+            vocabulary[i] = new String(chars);
+        }
+        return vocabulary;
+    }
+
+    static MetadataPicker picker(String name) {
+        switch (name) {
+            case "CHAR":
+                return new CharactMetadataPicker();
+            case "WORD":
+                return new EnglishWordMetadataPicker();
+            default:
+                throw new IllegalArgumentException("unknown picker " + name);
+        }
+    }
+
+    /**
+     * @return 引擎，TABLE返回null（使用LCSDiff内置的完整LCS表）
+     */
+    static LCSEngine engine(String name) {
+        switch (name) {
+            case "TABLE":
+                return null;
+            case "MYERS":
+                return new MyersLCSEngine();
+            case "HIRSCHBERG":
+                return new HirschbergLCSEngine();
+            case "BIT_PARALLEL":
+                return new BitParallelLCSEngine();
+            case "ANCHORED":
+                return new AnchoredLCSEngine();
+            case "ANCHORED_MYERS":
+                return new AnchoredLCSEngine(new MyersLCSEngine());
+            default:
+                throw new IllegalArgumentException("unknown engine " + name);
+        }
+    }
+}
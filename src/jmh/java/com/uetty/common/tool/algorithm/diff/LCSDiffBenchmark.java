@@ -0,0 +1,61 @@
+package com.uetty.common.tool.algorithm.diff;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LCSDiff各引擎的基准测试（小文本，所有引擎均可运行）
+ * <p>完整LCS表的内存与文本长度的平方成正比，这里的规模上限取8KB；更大的文本见{@link LargeDiffBenchmark}</p>
+ * <p>java -jar target/common-tool-benchmarks.jar LCSDiffBenchmark -prof gc -prof com.uetty.common.tool.benchmark.PeakHeapProfiler</p>
+ * @author : Vince
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LCSDiffBenchmark {
+
+    @Param({"1024", "8192"})
+    public int size;
+
+    @Param({"0.5", "0.9", "0.99"})
+    public double similarity;
+
+    @Param({"CHAR", "WORD"})
+    public String picker;
+
+    @Param({"TABLE", "MYERS", "HIRSCHBERG", "BIT_PARALLEL", "ANCHORED"})
+    public String engine;
+
+    private String text1;
+    private String text2;
+    private MetadataPicker metadataPicker;
+    private LCSEngine lcsEngine;
+
+    @Setup
+    public void setup() {
+        String[] pair = DiffInputs.similarPair(size, similarity);
+        text1 = pair[0];
+        text2 = pair[1];
+        metadataPicker = DiffInputs.picker(picker);
+        lcsEngine = DiffInputs.engine(engine);
+    }
+
+    @Benchmark
+    public LCSDiff.CommonInfo seekCommon() {
+        return new LCSDiff(text1, text2, metadataPicker, lcsEngine).seekCommon();
+    }
+}
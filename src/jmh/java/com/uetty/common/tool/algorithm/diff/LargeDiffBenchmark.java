@@ -0,0 +1,56 @@
+package com.uetty.common.tool.algorithm.diff;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 大文本（1MB~10MB）的基准测试，只包含内存与文本长度近似线性的引擎，按单词采拣
+ * <p>生成的文本词汇量小，几乎没有唯一的单词可作锚点，ANCHORED（Hirschberg兜底）会退化为对整个窗口的平方级计算，不在默认参数中</p>
+ * <p>java -jar target/common-tool-benchmarks.jar LargeDiffBenchmark -prof gc -prof com.uetty.common.tool.benchmark.PeakHeapProfiler</p>
+ * @author : Vince
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LargeDiffBenchmark {
+
+    @Param({"1048576", "10485760"})
+    public int size;
+
+    @Param({"0.99", "0.999"})
+    public double similarity;
+
+    @Param({"MYERS", "ANCHORED_MYERS"})
+    public String engine;
+
+    private String text1;
+    private String text2;
+    private LCSEngine lcsEngine;
+
+    @Setup
+    public void setup() {
+        String[] pair = DiffInputs.similarPair(size, similarity);
+        text1 = pair[0];
+        text2 = pair[1];
+        lcsEngine = DiffInputs.engine(engine);
+    }
+
+    @Benchmark
+    public LCSDiff.CommonInfo seekCommon() {
+        return new LCSDiff(text1, text2, new EnglishWordMetadataPicker(), lcsEngine).seekCommon();
+    }
+}
@@ -0,0 +1,54 @@
+package com.uetty.common.tool.algorithm.diff;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据元采拣器基准测试：字符串采拣与符号表采拣
+ * <p>java -jar target/common-tool-benchmarks.jar PickerBenchmark -prof gc</p>
+ * @author : Vince
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PickerBenchmark {
+
+    @Param({"1024", "102400", "10485760"})
+    public int size;
+
+    @Param({"CHAR", "WORD"})
+    public String picker;
+
+    private String text;
+    private MetadataPicker metadataPicker;
+
+    @Setup
+    public void setup() {
+        text = DiffInputs.similarPair(size, 1.0)[0];
+        metadataPicker = DiffInputs.picker(picker);
+    }
+
+    @Benchmark
+    public Metadatas pickStrings() {
+        return metadataPicker.doPick(text);
+    }
+
+    @Benchmark
+    public Metadatas pickIds() {
+        return metadataPicker.doPick(text, new SymbolTable());
+    }
+}
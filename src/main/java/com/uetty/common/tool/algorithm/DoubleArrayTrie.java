@@ -0,0 +1,222 @@
+package com.uetty.common.tool.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * 双数组字典树（Double-Array Trie）
+ * <p>整棵树压缩在base、check两个int数组中：状态s经过字符c转移到 p = base[s] + code(c)，当且仅当 check[p] == base[s] 时转移有效，
+ * 查找一个字符只需一次数组访问，内存远小于以对象节点实现的字典树</p>
+ * <p>构建完成后不可修改，可以在多个线程间共享</p>
+ * @author : Vince
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class DoubleArrayTrie {
+
+    /**
+     * 词语结束使用的编码，其他字符的编码为 char + 1
+     */
+    private static final int END_CODE = 0;
+    private static final int RESIZE_STEP = 1 << 16;
+    private static final int WIDE_SIBLINGS = 8;
+
+    private int[] base;
+    private int[] check;
+    private int size;
+
+    // 以下字段只在构建过程中使用
+    private String[] keys;
+    private boolean[] used;
+    /**
+     * 已占用位置指向其后可能空闲的位置（0表示该位置空闲），查找空位时带路径压缩地跳过已占用区间
+     */
+    private int[] skip;
+    /**
+     * 查找空位的起始位置，之前的区间已基本用满
+     */
+    private int nextCheckPos;
+    /**
+     * 上一次放置较宽兄弟节点组的位置，宽的组只能放在稀疏的末端区域，从这里开始查找以免反复扫描已用满的区间
+     */
+    private int wideBegin;
+
+    private DoubleArrayTrie() {
+    }
+
+    /**
+     * 由词语集合构建字典树，空字符串会被忽略
+     */
+    public static DoubleArrayTrie build(Collection<String> words) {
+        TreeSet<String> sorted = new TreeSet<>();
+        for (String word : words) {
+            if (word != null && !word.isEmpty()) {
+                sorted.add(word);
+            }
+        }
+        DoubleArrayTrie trie = new DoubleArrayTrie();
+        trie.keys = sorted.toArray(new String[0]);
+        trie.resize(RESIZE_STEP);
+        trie.base[0] = 1;
+        trie.skip[0] = 1;
+        if (trie.keys.length > 0) {
+            Node root = new Node(END_CODE, 0, 0, trie.keys.length);
+            trie.base[0] = trie.insert(trie.fetch(root));
+        }
+        trie.size = trie.keys.length;
+        trie.keys = null;
+        trie.used = null;
+        trie.skip = null;
+        // 去掉尾部未使用的空间
+        int last = trie.check.length - 1;
+        while (last > 0 && trie.check[last] == 0) last--;
+        trie.base = Arrays.copyOf(trie.base, last + 1);
+        trie.check = Arrays.copyOf(trie.check, last + 1);
+        return trie;
+    }
+
+    /**
+     * @return 词语个数
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(String word) {
+        return !word.isEmpty() && longestPrefix(word, 0, word.length()) == word.length();
+    }
+
+    /**
+     * 从start开始，在字典中能匹配到的最长词语
+     * @param cs 文本
+     * @param start 开始位置
+     * @param end 结束位置（不包含），匹配不会超过该位置
+     * @return 最长匹配的长度，没有匹配的词语时返回0
+     */
+    public int longestPrefix(CharSequence cs, int start, int end) {
+        int b = base[0];
+        int longest = 0;
+        for (int i = start; i < end; i++) {
+            int p = b + cs.charAt(i) + 1;
+            if (p >= check.length || check[p] != b) {
+                return longest;
+            }
+            b = base[p];
+            if (isEnd(b)) {
+                longest = i - start + 1;
+            }
+        }
+        return longest;
+    }
+
+    private boolean isEnd(int b) {
+        int p = b + END_CODE;
+        return p < check.length && check[p] == b && base[p] < 0;
+    }
+
+    /**
+     * 构建过程中的节点，对应有序词语数组中共享同一前缀的区间[left, right)
+     */
+    private static class Node {
+        final int code;
+        final int depth;
+        final int left;
+        int right;
+
+        Node(int code, int depth, int left, int right) {
+            this.code = code;
+            this.depth = depth;
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    private List<Node> fetch(Node parent) {
+        List<Node> siblings = new ArrayList<>();
+        for (int i = parent.left; i < parent.right; i++) {
+            String key = keys[i];
+            if (key.length() < parent.depth) continue;
+            int code = key.length() == parent.depth ? END_CODE : key.charAt(parent.depth) + 1;
+            Node last = siblings.isEmpty() ? null : siblings.get(siblings.size() - 1);
+            if (last == null || last.code != code) {
+                if (last != null) last.right = i;
+                siblings.add(new Node(code, parent.depth + 1, i, parent.right));
+            }
+        }
+        return siblings;
+    }
+
+    /**
+     * 为一组兄弟节点寻找可以同时放下的起始位置begin，写入check后递归插入子节点
+     * @return begin，即父节点的base值
+     */
+    private int insert(List<Node> siblings) {
+        int firstCode = siblings.get(0).code;
+        int lastCode = siblings.get(siblings.size() - 1).code;
+        boolean wide = siblings.size() >= WIDE_SIBLINGS;
+        int start = Math.max(firstCode + 1, wide ? wideBegin + firstCode : nextCheckPos);
+        int begin;
+        int pos = nextEmpty(start);
+        int visits = 0;
+        outer:
+        for (; ; pos = nextEmpty(pos + 1)) {
+            visits++;
+            begin = pos - firstCode;
+            if (begin + lastCode >= check.length) resize(begin + lastCode + RESIZE_STEP);
+            if (used[begin]) continue;
+            for (int k = 1; k < siblings.size(); k++) {
+                if (check[begin + siblings.get(k).code] != 0) continue outer;
+            }
+            break;
+        }
+        if (wide) {
+            wideBegin = begin;
+        } else {
+            // 扫过的区间中已占用的位置超过95%，下次从当前位置开始查找
+            int span = pos - start + 1;
+            if (span - visits >= 0.95 * span) nextCheckPos = pos;
+        }
+        used[begin] = true;
+        for (Node sibling : siblings) {
+            check[begin + sibling.code] = begin;
+            skip[begin + sibling.code] = begin + sibling.code + 1;
+        }
+        for (Node sibling : siblings) {
+            List<Node> children = fetch(sibling);
+            if (children.isEmpty()) {
+                base[begin + sibling.code] = -sibling.left - 1; // 叶子（词语结束），记录词语序号
+            } else {
+                // 递归插入可能扩容替换base数组，需先求值再写入
+                int childBegin = insert(children);
+                base[begin + sibling.code] = childBegin;
+            }
+        }
+        return begin;
+    }
+
+    /**
+     * pos及其之后第一个空闲的位置
+     */
+    private int nextEmpty(int pos) {
+        int p = pos;
+        while (p < skip.length && skip[p] != 0) {
+            p = skip[p];
+        }
+        while (pos < p && pos < skip.length) {
+            int next = skip[pos];
+            skip[pos] = p;
+            pos = next;
+        }
+        if (p >= check.length) resize(p + RESIZE_STEP);
+        return p;
+    }
+
+    private void resize(int newSize) {
+        base = base == null ? new int[newSize] : Arrays.copyOf(base, newSize);
+        check = check == null ? new int[newSize] : Arrays.copyOf(check, newSize);
+        used = used == null ? new boolean[newSize] : Arrays.copyOf(used, newSize);
+        skip = skip == null ? new int[newSize] : Arrays.copyOf(skip, newSize);
+    }
+}
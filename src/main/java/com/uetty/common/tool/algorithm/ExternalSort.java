@@ -0,0 +1,289 @@
+package com.uetty.common.tool.algorithm;
+
+import com.uetty.common.tool.constant.Global;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 外部排序，用于排序超过内存大小的数据
+ * <p>以行为记录，按内存预算读入一批记录排序后写入临时文件（顺串），临时文件位于{@link Global#TMP_FILE_DIR}；
+ * 再用堆对多个顺串做多路归并，顺串数超过归并路数时分多趟归并。读写均通过带缓冲的NIO通道</p>
+ * <p>比较器约定与{@link HeapSort}一致，排序结果按比较器升序，相等的记录保持输入中的先后顺序</p>
+ * @author Vince
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class ExternalSort {
+
+	/**
+	 * 估算一行记录在内存中占用的字节数：String对象、字符数组的对象头及列表中的引用
+	 */
+	private static final int RECORD_OVERHEAD = 64;
+
+	private Comparator<String> ctor;
+	private long memoryBudget = Math.max(16L << 20, Runtime.getRuntime().maxMemory() / 4);
+	private int mergeWays = 64;
+	private int bufferSize = 1 << 16;
+	private Charset charset = StandardCharsets.UTF_8;
+	private Path tmpDir = Paths.get(Global.TMP_FILE_DIR.getValue());
+
+	/**
+	 * @param ctor 比较器，为空时按字符串自然顺序（此时顺串使用{@link RadixSort}排序）
+	 * @return 链式返回自身
+	 */
+	public ExternalSort setComparator(Comparator<String> ctor) {
+		this.ctor = ctor;
+		return this;
+	}
+
+	/**
+	 * @param memoryBudget 每个顺串在内存中占用的字节数上限（估算值），默认为最大堆内存的1/4
+	 * @return 链式返回自身
+	 */
+	public ExternalSort setMemoryBudget(long memoryBudget) {
+		this.memoryBudget = memoryBudget;
+		return this;
+	}
+
+	/**
+	 * @param mergeWays 一趟归并同时打开的顺串数，默认64
+	 * @return 链式返回自身
+	 */
+	public ExternalSort setMergeWays(int mergeWays) {
+		if (mergeWays < 2) {
+			throw new IllegalArgumentException("merge ways must be at least 2");
+		}
+		this.mergeWays = mergeWays;
+		return this;
+	}
+
+	/**
+	 * @param bufferSize 每个读写通道的缓冲大小（字节）
+	 * @return 链式返回自身
+	 */
+	public ExternalSort setBufferSize(int bufferSize) {
+		this.bufferSize = bufferSize;
+		return this;
+	}
+
+	public ExternalSort setCharset(Charset charset) {
+		this.charset = charset;
+		return this;
+	}
+
+	/**
+	 * @param tmpDir 顺串临时文件目录，默认为Global.TMP_FILE_DIR
+	 * @return 链式返回自身
+	 */
+	public ExternalSort setTmpDir(Path tmpDir) {
+		this.tmpDir = tmpDir;
+		return this;
+	}
+
+	/**
+	 * 排序文件
+	 * @param input 输入文件，每行一条记录
+	 * @param output 输出文件，可以与输入文件相同
+	 */
+	public void sort(Path input, Path output) throws IOException {
+		List<Path> runs;
+		try (BufferedReader reader = newReader(FileChannel.open(input, StandardOpenOption.READ))) {
+			runs = spillRuns(reader);
+		}
+		try {
+			try (BufferedWriter writer = newWriter(FileChannel.open(output, StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+				mergeRuns(runs, writer);
+			}
+		} finally {
+			deleteRuns(runs);
+		}
+	}
+
+	/**
+	 * 排序输入流，不关闭输入流与输出流
+	 * @param input 输入流，每行一条记录
+	 * @param output 输出流
+	 */
+	public void sort(InputStream input, OutputStream output) throws IOException {
+		BufferedReader reader = newReader(Channels.newChannel(input));
+		List<Path> runs = spillRuns(reader);
+		try {
+			BufferedWriter writer = newWriter(Channels.newChannel(output));
+			mergeRuns(runs, writer);
+			writer.flush();
+		} finally {
+			deleteRuns(runs);
+		}
+	}
+
+	private BufferedReader newReader(ReadableByteChannel channel) {
+		return new BufferedReader(Channels.newReader(channel, charset.newDecoder(), bufferSize), bufferSize);
+	}
+
+	private BufferedWriter newWriter(WritableByteChannel channel) {
+		return new BufferedWriter(Channels.newWriter(channel, charset.newEncoder(), bufferSize), bufferSize);
+	}
+
+	/**
+	 * 按内存预算分批读取、排序并写入临时文件
+	 * @return 各顺串的临时文件
+	 */
+	private List<Path> spillRuns(BufferedReader reader) throws IOException {
+		List<Path> runs = new ArrayList<>();
+		RadixSort radixSort = ctor == null ? new RadixSort() : null;
+		List<String> batch = new ArrayList<>();
+		try {
+			String line = reader.readLine();
+			while (line != null) {
+				long used = 0;
+				while (line != null && (used < memoryBudget || batch.isEmpty())) {
+					batch.add(line);
+					used += RECORD_OVERHEAD + 2L * line.length();
+					line = reader.readLine();
+				}
+				String[] records = batch.toArray(new String[0]);
+				batch.clear();
+				if (radixSort != null) {
+					radixSort.sort(records);
+				} else {
+					Arrays.parallelSort(records, ctor);
+				}
+				Path run = Files.createTempFile(tmpDir, "external-sort-", ".run");
+				runs.add(run);
+				try (BufferedWriter writer = newWriter(FileChannel.open(run, StandardOpenOption.WRITE))) {
+					for (String record : records) {
+						writer.write(record);
+						writer.write('\n');
+					}
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			deleteRuns(runs);
+			throw e;
+		}
+		return runs;
+	}
+
+	/**
+	 * 多趟归并，直到顺串数不超过归并路数，最后一趟写入输出
+	 */
+	private void mergeRuns(List<Path> runs, Writer output) throws IOException {
+		while (runs.size() > mergeWays) {
+			List<Path> merged = new ArrayList<>();
+			try {
+				for (int from = 0; from < runs.size(); from += mergeWays) {
+					List<Path> group = runs.subList(from, Math.min(from + mergeWays, runs.size()));
+					Path run = Files.createTempFile(tmpDir, "external-sort-", ".run");
+					merged.add(run);
+					try (BufferedWriter writer = newWriter(FileChannel.open(run, StandardOpenOption.WRITE))) {
+						merge(group, writer);
+					}
+				}
+			} catch (IOException | RuntimeException e) {
+				deleteRuns(merged);
+				throw e;
+			}
+			deleteRuns(runs);
+			runs.clear();
+			runs.addAll(merged);
+		}
+		merge(runs, output);
+	}
+
+	/**
+	 * 以顺串当前记录建小顶堆（即反向比较器的大顶堆），每次输出堆顶记录并读入该顺串的下一条
+	 */
+	private void merge(List<Path> runs, Writer output) throws IOException {
+		RunReader[] heap = new RunReader[runs.size()];
+		int size = 0;
+		try {
+			for (int i = 0; i < runs.size(); i++) {
+				RunReader run = new RunReader(i, newReader(FileChannel.open(runs.get(i), StandardOpenOption.READ)));
+				heap[size++] = run;
+				if (!run.next()) {
+					run.close();
+					size--;
+				}
+			}
+			Comparator<String> recordCtor = ctor != null ? ctor : Comparator.naturalOrder();
+			// 记录相等时顺串序号小的先输出，保证稳定
+			Comparator<RunReader> heapCtor = (r1, r2) -> {
+				int c = recordCtor.compare(r2.current, r1.current);
+				return c != 0 ? c : Integer.compare(r2.index, r1.index);
+			};
+			for (int i = size / 2 - 1; i >= 0; i--) {
+				HeapSort.siftDown(heap, i, size, heapCtor);
+			}
+			while (size > 0) {
+				RunReader top = heap[0];
+				output.write(top.current);
+				output.write('\n');
+				if (!top.next()) {
+					top.close();
+					heap[0] = heap[--size];
+					heap[size] = null;
+				}
+				if (size > 0) {
+					HeapSort.siftDown(heap, 0, size, heapCtor);
+				}
+			}
+		} finally {
+			for (int i = 0; i < size; i++) {
+				heap[i].close();
+			}
+		}
+	}
+
+	private static void deleteRuns(List<Path> runs) {
+		for (Path run : runs) {
+			try {
+				Files.deleteIfExists(run);
+			} catch (IOException ignore) {
+			}
+		}
+	}
+
+	/**
+	 * 顺串的读取游标
+	 */
+	private static class RunReader implements Closeable {
+		final int index;
+		final BufferedReader reader;
+		String current;
+
+		RunReader(int index, BufferedReader reader) {
+			this.index = index;
+			this.reader = reader;
+		}
+
+		boolean next() throws IOException {
+			current = reader.readLine();
+			return current != null;
+		}
+
+		@Override
+		public void close() throws IOException {
+			reader.close();
+		}
+	}
+}
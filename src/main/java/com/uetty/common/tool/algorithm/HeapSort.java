@@ -3,14 +3,22 @@ package com.uetty.common.tool.algorithm;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * 堆排序
+ * <p>另提供只需要前K个元素时的有界堆选择（topK）与数组的第n小元素选择（nthElement）</p>
  * @author Vince
  */
 public class HeapSort {
 
+	/**
+	 * 选择时不超过该长度的区间使用插入排序
+	 */
+	private static final int SELECT_INSERTION_THRESHOLD = 16;
+
 	private static <T> void swap(List<T> list, int i, int j) {
 		T cache = list.get(j);
 		list.set(j, list.get(i));
@@ -42,12 +50,211 @@ public class HeapSort {
 		}
 	}
 	
+	/**
+	 * 数组形式的大顶堆调整：pos位置的值下沉，直到不小于两个子节点
+	 * @param heap 堆数组
+	 * @param pos 需要调整的位置
+	 * @param size 堆的大小
+	 * @param ctor 比较器，比较结果更大的在堆顶
+	 */
+	static <T> void siftDown(T[] heap, int pos, int size, Comparator<? super T> ctor) {
+		T value = heap[pos];
+		int child;
+		while ((child = 2 * pos + 1) < size) {
+			if (child + 1 < size && ctor.compare(heap[child + 1], heap[child]) > 0) {
+				child++;
+			}
+			if (ctor.compare(heap[child], value) <= 0) break;
+			heap[pos] = heap[child];
+			pos = child;
+		}
+		heap[pos] = value;
+	}
+
+	/**
+	 * 数组形式的大顶堆调整：pos位置的值上浮，直到不大于父节点
+	 */
+	static <T> void siftUp(T[] heap, int pos, Comparator<? super T> ctor) {
+		T value = heap[pos];
+		while (pos > 0) {
+			int parent = (pos - 1) / 2;
+			if (ctor.compare(heap[parent], value) >= 0) break;
+			heap[pos] = heap[parent];
+			pos = parent;
+		}
+		heap[pos] = value;
+	}
+
+	/**
+	 * 取最大的k个元素
+	 * <p>只保留一个大小为k的小顶堆（即反向比较器的大顶堆），堆顶是已选出的元素中最小的一个，新元素比堆顶大时替换堆顶，
+	 * 时间复杂度O(nlogk)，内存O(k)，适合从大量（或流式的）候选中选出少量元素</p>
+	 * @param iterator 候选元素
+	 * @param k 需要的元素个数
+	 * @param ctor 比较器，比较结果更大的优先
+	 * @return 最大的k个元素（候选不足k个时为全部），从大到小排列
+	 */
+	public static <T> List<T> topK(Iterator<? extends T> iterator, int k, Comparator<T> ctor) {
+		if (k <= 0) return new ArrayList<>();
+		Comparator<T> reversed = ctor.reversed();
+		@SuppressWarnings("unchecked")
+		T[] heap = (T[]) new Object[Math.min(k, 1024)];
+		int size = 0;
+		while (iterator.hasNext()) {
+			T t = iterator.next();
+			if (size < k) {
+				if (size == heap.length) {
+					heap = Arrays.copyOf(heap, (int) Math.min((long) k, size * 2L));
+				}
+				heap[size] = t;
+				siftUp(heap, size++, reversed);
+			} else if (ctor.compare(t, heap[0]) > 0) {
+				heap[0] = t;
+				siftDown(heap, 0, size, reversed);
+			}
+		}
+		// 依次取出堆顶（最小值）放到末尾，得到从大到小的顺序
+		for (int last = size - 1; last > 0; last--) {
+			T top = heap[0];
+			heap[0] = heap[last];
+			heap[last] = top;
+			siftDown(heap, 0, last, reversed);
+		}
+		List<T> list = new ArrayList<>(size);
+		list.addAll(Arrays.asList(heap).subList(0, size));
+		return list;
+	}
+
+	/**
+	 * 取最大的k个元素，见{@link #topK(Iterator, int, Comparator)}
+	 */
+	public static <T> List<T> topK(Stream<? extends T> stream, int k, Comparator<T> ctor) {
+		return topK(stream.iterator(), k, ctor);
+	}
+
+	/**
+	 * 第n小元素选择（内省选择）
+	 * <p>调整数组，使array[n]为升序排序后应在该位置的元素，之前的元素都不大于它，之后的元素都不小于它。
+	 * 快速选择平均O(n)，递归层数超过2倍log2(n)时对剩余区间排序，保证最坏O(nlogn)</p>
+	 * @param array 数组
+	 * @param n 位置（从0开始）
+	 * @param ctor 比较器
+	 */
+	public static <T> void nthElement(T[] array, int n, Comparator<? super T> ctor) {
+		checkNth(array.length, n);
+		int lo = 0;
+		int hi = array.length;
+		int depth = SortTool.maxDepth(array.length);
+		while (hi - lo > SELECT_INSERTION_THRESHOLD) {
+			if (depth-- == 0) {
+				Arrays.sort(array, lo, hi, ctor);
+				return;
+			}
+			int split = partition(array, lo, hi, ctor);
+			if (n < split) {
+				hi = split;
+			} else {
+				lo = split;
+			}
+		}
+		for (int i = lo + 1; i < hi; i++) {
+			T value = array[i];
+			int j = i - 1;
+			while (j >= lo && ctor.compare(array[j], value) > 0) {
+				array[j + 1] = array[j];
+				j--;
+			}
+			array[j + 1] = value;
+		}
+	}
+
+	/**
+	 * 第n小元素选择，见{@link #nthElement(Object[], int, Comparator)}
+	 */
+	public static void nthElement(int[] array, int n) {
+		checkNth(array.length, n);
+		int lo = 0;
+		int hi = array.length;
+		int depth = SortTool.maxDepth(array.length);
+		while (hi - lo > SELECT_INSERTION_THRESHOLD) {
+			if (depth-- == 0) {
+				Arrays.sort(array, lo, hi);
+				return;
+			}
+			int split = SortTool.partition(array, lo, hi);
+			if (n < split) {
+				hi = split;
+			} else {
+				lo = split;
+			}
+		}
+		SortTool.insertionSort(array, lo, hi);
+	}
+
+	/**
+	 * 第n小元素选择，见{@link #nthElement(Object[], int, Comparator)}
+	 */
+	public static void nthElement(long[] array, int n) {
+		checkNth(array.length, n);
+		int lo = 0;
+		int hi = array.length;
+		int depth = SortTool.maxDepth(array.length);
+		while (hi - lo > SELECT_INSERTION_THRESHOLD) {
+			if (depth-- == 0) {
+				Arrays.sort(array, lo, hi);
+				return;
+			}
+			int split = SortTool.partition(array, lo, hi);
+			if (n < split) {
+				hi = split;
+			} else {
+				lo = split;
+			}
+		}
+		SortTool.insertionSort(array, lo, hi);
+	}
+
+	private static void checkNth(int length, int n) {
+		if (n < 0 || n >= length) {
+			throw new IndexOutOfBoundsException("n: " + n + ", length: " + length);
+		}
+	}
+
+	/**
+	 * 三数取中后做Hoare分区，同SortTool中基本类型数组的分区
+	 * @return 分割位置split，[lo, split)的值都不大于[split, hi)的值，两边均非空
+	 */
+	private static <T> int partition(T[] array, int lo, int hi, Comparator<? super T> ctor) {
+		int mid = (lo + hi) >>> 1;
+		if (ctor.compare(array[mid], array[lo]) < 0) swap(array, lo, mid);
+		if (ctor.compare(array[hi - 1], array[mid]) < 0) {
+			swap(array, mid, hi - 1);
+			if (ctor.compare(array[mid], array[lo]) < 0) swap(array, lo, mid);
+		}
+		T medianValue = array[mid];
+		int i = lo;
+		int j = hi - 1;
+		while (true) {
+			do i++; while (ctor.compare(array[i], medianValue) < 0);
+			do j--; while (ctor.compare(array[j], medianValue) > 0);
+			if (i >= j) return j + 1;
+			swap(array, i, j);
+		}
+	}
+
+	private static <T> void swap(T[] array, int i, int j) {
+		T t = array[i];
+		array[i] = array[j];
+		array[j] = t;
+	}
+
 	public static <T> void sort(List<T> list, Comparator<T> ctor) {
+		if (list.size() < 2) return;
 		buildBigHeap(list, ctor);
 		
 		int maxPos = list.size() - 1;
 		swap(list, 0, maxPos--);
-		while (maxPos > 1) {
+		while (maxPos > 0) {
 			adjustHeap(list, 0, maxPos, ctor);
 			swap(list, 0, maxPos--);
 		}
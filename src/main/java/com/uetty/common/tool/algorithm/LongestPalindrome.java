@@ -1,12 +1,21 @@
 package com.uetty.common.tool.algorithm;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 /**
  * 最长回文串 Manacher法
+ * <p>批量接口返回每个中心位置的极大回文串（以该位置为中心无法再向两边扩展的回文串），
+ * 多个文本并行处理，每个工作线程复用自己的临时数组，避免大量调用时频繁分配内存</p>
  * @author Vince
  */
 @SuppressWarnings("unused")
 public class LongestPalindrome {
 
+    private static final ThreadLocal<Scanner> SCANNERS = ThreadLocal.withInitial(Scanner::new);
+
     public String manacher(String s) {
         if (s == null || s.length() < 2) return s;
         final char ichar = '%';
@@ -53,4 +62,162 @@ public class LongestPalindrome {
         }
         return new String(rchars);
     }
+
+    /**
+     * 单个文本的所有极大回文串
+     * @param s 文本
+     * @param minLength 回文串的最小长度，更短的不返回
+     */
+    public Palindromes maximalPalindromes(String s, int minLength) {
+        return SCANNERS.get().scan(s, minLength);
+    }
+
+    /**
+     * 并行计算多个文本的所有极大回文串
+     * @param texts 文本列表
+     * @param minLength 回文串的最小长度，更短的不返回
+     * @return 与文本列表一一对应的结果
+     */
+    public List<Palindromes> maximalPalindromes(List<String> texts, int minLength) {
+        return texts.parallelStream()
+                .map(text -> SCANNERS.get().scan(text, minLength))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 并行计算文本流中每个文本的所有极大回文串
+     * @param texts 文本流
+     * @param minLength 回文串的最小长度，更短的不返回
+     * @return 与文本流一一对应的结果流（保持原有顺序）
+     */
+    public Stream<Palindromes> maximalPalindromes(Stream<String> texts, int minLength) {
+        return texts.parallel().map(text -> SCANNERS.get().scan(text, minLength));
+    }
+
+    /**
+     * 每个线程一个，复用文本字符、回文半径及结果的临时数组
+     */
+    private static class Scanner {
+        char[] chars = new char[0];
+        /**
+         * 奇数长度：以i为中心的极大回文串长度为 2 * odds[i] - 1
+         */
+        int[] odds = new int[0];
+        /**
+         * 偶数长度：以i - 1、i之间为中心的极大回文串长度为 2 * evens[i]
+         */
+        int[] evens = new int[0];
+        int[] starts = new int[16];
+        int[] lengths = new int[16];
+        int count;
+
+        Palindromes scan(String s, int minLength) {
+            int n = s.length();
+            if (chars.length < n) {
+                int capacity = Math.max(n, chars.length * 2);
+                chars = new char[capacity];
+                odds = new int[capacity];
+                evens = new int[capacity];
+            }
+            s.getChars(0, n, chars, 0);
+
+            // 奇数长度，[left, right]为已知右端最远的回文串
+            for (int i = 0, left = 0, right = -1; i < n; i++) {
+                int k = i > right ? 1 : Math.min(odds[left + right - i], right - i + 1);
+                while (i - k >= 0 && i + k < n && chars[i - k] == chars[i + k]) {
+                    k++;
+                }
+                odds[i] = k;
+                if (i + k - 1 > right) {
+                    left = i - k + 1;
+                    right = i + k - 1;
+                }
+            }
+            // 偶数长度
+            for (int i = 0, left = 0, right = -1; i < n; i++) {
+                int k = i > right ? 0 : Math.min(evens[left + right - i + 1], right - i + 1);
+                while (i - k - 1 >= 0 && i + k < n && chars[i - k - 1] == chars[i + k]) {
+                    k++;
+                }
+                evens[i] = k;
+                if (i + k - 1 > right) {
+                    left = i - k;
+                    right = i + k - 1;
+                }
+            }
+
+            // 按中心位置从左到右输出
+            count = 0;
+            for (int i = 0; i < n; i++) {
+                if (2 * evens[i] >= minLength && evens[i] > 0) {
+                    add(i - evens[i], 2 * evens[i]);
+                }
+                if (2 * odds[i] - 1 >= minLength) {
+                    add(i - odds[i] + 1, 2 * odds[i] - 1);
+                }
+            }
+            return new Palindromes(s, Arrays.copyOf(starts, count), Arrays.copyOf(lengths, count));
+        }
+
+        private void add(int start, int length) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+            }
+            starts[count] = start;
+            lengths[count] = length;
+            count++;
+        }
+    }
+
+    /**
+     * 一个文本的所有极大回文串，按中心位置从左到右排列
+     */
+    public static class Palindromes {
+        private final String text;
+        private final int[] starts;
+        private final int[] lengths;
+
+        Palindromes(String text, int[] starts, int[] lengths) {
+            this.text = text;
+            this.starts = starts;
+            this.lengths = lengths;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public int size() {
+            return starts.length;
+        }
+
+        /**
+         * @return 第index个回文串在文本中的开始位置
+         */
+        public int getStart(int index) {
+            return starts[index];
+        }
+
+        public int getLength(int index) {
+            return lengths[index];
+        }
+
+        public String getPalindrome(int index) {
+            return text.substring(starts[index], starts[index] + lengths[index]);
+        }
+
+        /**
+         * @return 最长回文串的序号（有多个时取最靠前的），没有回文串时返回-1
+         */
+        public int longestIndex() {
+            int longest = -1;
+            for (int i = 0; i < lengths.length; i++) {
+                if (longest < 0 || lengths[i] > lengths[longest]) {
+                    longest = i;
+                }
+            }
+            return longest;
+        }
+    }
 }
@@ -1,42 +1,50 @@
 package com.uetty.common.tool.algorithm;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * 多线程方式快速排序
+ * <p>列表先拷贝为数组，在ForkJoinPool中分治排序后再写回列表。每次分区后左右子区间作为两个子任务，
+ * 空闲线程会窃取尚未执行的子任务，线程数由线程池决定，不会无限制地创建线程</p>
+ * <p>区间数据量不超过{@link #setBusyLine(int)}设置的值时不再拆分，在当前线程中顺序排序</p>
  * @author vince
  */
 @SuppressWarnings("unused")
 public class MultiQuickSort<T extends Comparable<T>> {
 
+	/**
+	 * 拆分任务的最小数据量，再小时任务调度的开销会超过并行带来的收益
+	 */
+	private static final int MIN_BUSY_LINE = 1 << 13;
+
 	private final List<T> list;
 	private int threadListSize = 500000;
 	private boolean asc = true;
-	private int threadSize = 1;
-	
+	private ForkJoinPool pool;
+
 	public MultiQuickSort(List<T> list) {
-		
-		this.list = list;// 不会存在同时修改同一个index的线程，无须加锁
+
+		this.list = list;
 	}
-	
+
 	public MultiQuickSort<T> sortAsc() {
 		this.asc = true;
 		return this;
 	}
-	
+
 	public MultiQuickSort<T> sortDesc() {
 		this.asc = false;
 		return this;
 	}
-	
-	private boolean t1InRight(T t1, T t2) {
-		boolean t1InRight = t1.compareTo(t2) > 0;
-		return asc == t1InRight;
-	}
-	
+
 	/**
-	 * 当任务数达到多少时启用新线程
-	 * @param size 单线程数据量限制
+	 * 当任务数达到多少时拆分为并行的子任务
+	 * @param size 单线程数据量限制，小于8192时按8192处理
 	 * @return 链式返回自身
 	 */
 	@SuppressWarnings("UnusedReturnValue")
@@ -44,7 +52,17 @@ public class MultiQuickSort<T extends Comparable<T>> {
 		this.threadListSize = size;
 		return this;
 	}
-	
+
+	/**
+	 * 执行排序的线程池
+	 * @param pool 为空时使用公共的ForkJoinPool
+	 * @return 链式返回自身
+	 */
+	public MultiQuickSort<T> setPool(ForkJoinPool pool) {
+		this.pool = pool;
+		return this;
+	}
+
 	public void execute() {
 		try {
 			quickSort();
@@ -55,121 +73,111 @@ public class MultiQuickSort<T extends Comparable<T>> {
 			throw new QuickSortException(e);
 		}
 	}
-	
-	private void quickSort() throws InterruptedException {
-		threadSize = 1;
-		quickSortMedianPlace(0, list.size() - 1);
+
+	@SuppressWarnings("unchecked")
+	private void quickSort() {
+		int size = list.size();
+		if (size < 2) return;
+		T[] array = (T[]) list.toArray(new Comparable<?>[0]);
+		Comparator<T> comparator = asc ? Comparator.naturalOrder() : Comparator.reverseOrder();
+		int cutoff = Math.max(threadListSize, MIN_BUSY_LINE);
+		// 递归层数超过2倍的log2(n)说明分区极不平衡，剩余区间直接顺序排序，防止极端数据退化
+		int maxDepth = 2 * (32 - Integer.numberOfLeadingZeros(size));
+		ForkJoinPool forkJoinPool = pool != null ? pool : ForkJoinPool.commonPool();
+		forkJoinPool.invoke(new SortTask<>(array, 0, size, maxDepth, cutoff, comparator));
+
+		// 写回列表，ListIterator对链表也是线性时间
+		ListIterator<T> iterator = list.listIterator();
+		for (T t : array) {
+			iterator.next();
+			iterator.set(t);
+		}
 	}
-	
-	
-	private void quickSortMedianPlace(int left, int right) throws InterruptedException {
-		if (left >= right) return;
-		for (int m = 0; m < 1; m++) {// 假循环，防止极端数据
-			int i = left;// 左边游标值
-			int j = right;// 右边游标值
-			T medianValue = list.get(i);// 初始以左边界值作为中间值
-			int posDir = -1;// 初始从右往左检测
-			while (i != j) {// 当i与j位置重叠
-				if (posDir > 0) {// 从左往右
-					if (t1InRight(list.get(i), medianValue)) {// 在左边找到应该在中间值右边的值
-//					if (list.get(i).compareTo(medianValue) > 0) {
-						list.set(j, list.get(i));// 将找到的值放到右边上次出值的位置
-						posDir = -1;// 查找方向交替
-						j--;// 右边的游标值减少
-					} else {
-						i++;
-					}
-				} else {// 从右往左
-					if (t1InRight(medianValue, list.get(j))) {// 在右边找到应该在中间值左边的值
-//					if (medianValue.compareTo(list.get(j)) > 0) {
-						list.set(i, list.get(j));// 找到的值放到左边的上次出值的位置
-						posDir = 1;// 查找方向交替
-						i++;// 左边游标值增加
-					} else {
-						j--;
-					}
-				}
-			}
-			// 找到了中间值的位置
-			list.set(i, medianValue);
-			
-			// 如果出现极端数据重新洗牌
-			int rs = right - i;
-			int ls = i - left;
-			int sz = right - left;
-			float percent = rs == 0 ? 0 : ((float)ls / sz);
-			if (((sz > 10000) && (percent > 0.92 || percent < 0.08))
-					|| ((sz > 500) && (percent > 0.98 || percent < 0.02))) {// 防止极端数据，数据洗牌重来
-				T first = list.get(left);
-				int exchangeIndex = left + sz / 3 + ((int)(Math.random() * sz / 3));
-				list.set(left, list.get(exchangeIndex));
-				list.set(exchangeIndex, first);
-				m--;
-				continue;
-			}
-			
-			// 左右子区间分别递归
-			boolean newThread = false;
-			
-			if ((sz / 2.5 / threadSize / threadSize > threadListSize) && ls > threadListSize && rs > threadListSize) {
-				// 如果左右区间的数据量均较大
-				threadSize++;
-				newThread = true;
+
+	/**
+	 * 排序区间[lo, hi)的任务
+	 */
+	@SuppressWarnings("serial")
+	private static class SortTask<T> extends RecursiveAction {
+		final T[] array;
+		final int lo;
+		final int hi;
+		final int depth;
+		final int cutoff;
+		final Comparator<T> comparator;
+
+		SortTask(T[] array, int lo, int hi, int depth, int cutoff, Comparator<T> comparator) {
+			this.array = array;
+			this.lo = lo;
+			this.hi = hi;
+			this.depth = depth;
+			this.cutoff = cutoff;
+			this.comparator = comparator;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo <= cutoff || depth == 0) {
+				Arrays.sort(array, lo, hi, comparator);
+				return;
 			}
-			
-			if (newThread) {
-				// 快速排序存在扩展性，可以使用多线程排序加速
-				// 注意这里只启一个新线程，不然算法会有两个优化问题：
-				// 1. 排序算法在时间利用上会存在启动线程阶段的空档期 2. 线程启动本身是比较消耗时间资源盲目启用降低效率
-				// 应充分利用已有线程，在新线程的启动阶段让旧线程的排序代码继续运行
-				if (ls > rs) {
-					SortRunable runable = new SortRunable(i + 1, right);
-					Thread thread = new Thread(runable);
-					thread.setDaemon(true);
-					thread.start();
-					quickSortMedianPlace(left, i - 1);
-					thread.join();
+			// 三路分区：[lo, lt)小于中间值，[lt, gt)等于中间值，[gt, hi)大于中间值，大量重复数据时不会退化
+			T median = median();
+			int lt = lo;
+			int gt = hi;
+			int i = lo;
+			while (i < gt) {
+				int c = comparator.compare(array[i], median);
+				if (c < 0) {
+					swap(lt++, i++);
+				} else if (c > 0) {
+					swap(i, --gt);
 				} else {
-					SortRunable runable = new SortRunable(left, i - 1);
-					Thread thread = new Thread(runable);
-					thread.setDaemon(true);
-					thread.start();
-					quickSortMedianPlace(i + 1, right);
-					thread.join();
+					i++;
 				}
-			} else {
-				quickSortMedianPlace(left, i - 1);
-				quickSortMedianPlace(i + 1, right);
 			}
+			invokeAll(new SortTask<>(array, lo, lt, depth - 1, cutoff, comparator),
+					new SortTask<>(array, gt, hi, depth - 1, cutoff, comparator));
 		}
-	}
-	
-	/**
-	 * 排序辅助线程
-	 */
-	private class SortRunable implements Runnable {
-		int left;
-		int right;
-		public SortRunable(int left, int right) {
-			this.left = left;
-			this.right = right;
+
+		/**
+		 * 九数取中（三组三数取中再取中）作为中间值，有序、逆序数据也能均匀分区
+		 */
+		private T median() {
+			int step = (hi - lo) / 8;
+			int mid = (lo + hi) >>> 1;
+			T m1 = median(lo, lo + step, lo + 2 * step);
+			T m2 = median(mid - step, mid, mid + step);
+			T m3 = median(hi - 1 - 2 * step, hi - 1 - step, hi - 1);
+			return median(m1, m2, m3);
 		}
-		@Override
-		public void run() {
-			try {
-				quickSortMedianPlace(left, right);
-			} catch (InterruptedException e) {
-				throw new QuickSortException(e);
+
+		private T median(int a, int b, int c) {
+			return median(array[a], array[b], array[c]);
+		}
+
+		private T median(T a, T b, T c) {
+			if (comparator.compare(a, b) < 0) {
+				if (comparator.compare(b, c) < 0) return b;
+				return comparator.compare(a, c) < 0 ? c : a;
 			}
+			if (comparator.compare(a, c) < 0) return a;
+			return comparator.compare(b, c) < 0 ? c : b;
+		}
+
+		private void swap(int i, int j) {
+			T t = array[i];
+			array[i] = array[j];
+			array[j] = t;
 		}
 	}
-	
+
 	@SuppressWarnings("serial")
 	public static class QuickSortException extends RuntimeException {
-		
+
 		public QuickSortException(Throwable e) {
 			super(e);
 		}
-		
+
 	}
 }
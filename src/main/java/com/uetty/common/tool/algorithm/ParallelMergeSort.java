@@ -0,0 +1,348 @@
+package com.uetty.common.tool.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 稳定的多线程归并排序
+ * <p>1. 数组分段并行查找自然有序的顺串（同TimSort：非递减的顺串直接使用，严格递减的顺串原地翻转），过短的顺串用二分插入排序补足到32个元素</p>
+ * <p>2. 按元素个数把顺串二分，左右两半在ForkJoinPool中并行排序后归并，排序数组与辅助数组交替作为归并的源和目标</p>
+ * <p>3. 较大的归并也拆分为并行任务：取较长一边的中间元素，二分查找另一边的分割位置，前后两部分分别归并</p>
+ * <p>相等的元素保持原有的先后顺序，多关键字排序时可以依次按次要、主要关键字排序</p>
+ * @author Vince
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class ParallelMergeSort {
+
+	/**
+	 * 顺串的最小长度，不足时用二分插入排序补足
+	 */
+	private static final int MIN_RUN = 32;
+	/**
+	 * 查找顺串时每个分段的最小长度
+	 */
+	private static final int MIN_CHUNK = 1 << 13;
+	/**
+	 * 不超过该元素个数的排序、归并在当前线程中顺序执行
+	 */
+	private static final int SEQUENTIAL_THRESHOLD = 1 << 13;
+
+	public static <T> void sort(T[] array, Comparator<? super T> ctor) {
+		sort(array, ctor, ForkJoinPool.commonPool());
+	}
+
+	public static <T> void sort(List<T> list, Comparator<? super T> ctor) {
+		sort(list, ctor, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * 排序列表：拷贝为数组排序后写回
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> void sort(List<T> list, Comparator<? super T> ctor, ForkJoinPool pool) {
+		T[] array = (T[]) list.toArray();
+		sort(array, ctor, pool);
+		ListIterator<T> iterator = list.listIterator();
+		for (T t : array) {
+			iterator.next();
+			iterator.set(t);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <T> void sort(T[] array, Comparator<? super T> ctor, ForkJoinPool pool) {
+		int size = array.length;
+		if (size < 2) return;
+		int chunk = Math.max(MIN_CHUNK, size / (pool.getParallelism() * 4));
+		int[] bounds = findRuns(array, ctor, chunk, pool);
+		int runs = bounds.length - 1;
+		if (runs == 1) return;
+		T[] aux = (T[]) new Object[size];
+		pool.invoke(new RunsTask<>(array, aux, bounds, 0, runs, false, ctor));
+	}
+
+	/**
+	 * 分段并行查找顺串
+	 * @return 顺串边界，第i个顺串为[bounds[i], bounds[i + 1])
+	 */
+	private static <T> int[] findRuns(T[] array, Comparator<? super T> ctor, int chunk, ForkJoinPool pool) {
+		List<ChunkRunsTask<T>> tasks = new ArrayList<>();
+		for (int lo = 0; lo < array.length; lo += chunk) {
+			tasks.add(new ChunkRunsTask<>(array, lo, Math.min(lo + chunk, array.length), ctor));
+		}
+		if (tasks.size() == 1) {
+			tasks.get(0).compute();
+		} else {
+			pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+		}
+		int count = 0;
+		for (ChunkRunsTask<T> task : tasks) {
+			count += task.runCount;
+		}
+		int[] bounds = new int[count + 1];
+		int k = 0;
+		for (ChunkRunsTask<T> task : tasks) {
+			System.arraycopy(task.runEnds, 0, bounds, k + 1, task.runCount);
+			k += task.runCount;
+		}
+		return bounds;
+	}
+
+	/**
+	 * 查找一个分段中的顺串
+	 */
+	@SuppressWarnings("serial")
+	private static class ChunkRunsTask<T> extends RecursiveAction {
+		final T[] array;
+		final int lo;
+		final int hi;
+		final Comparator<? super T> ctor;
+		int[] runEnds = new int[16];
+		int runCount;
+
+		ChunkRunsTask(T[] array, int lo, int hi, Comparator<? super T> ctor) {
+			this.array = array;
+			this.lo = lo;
+			this.hi = hi;
+			this.ctor = ctor;
+		}
+
+		@Override
+		protected void compute() {
+			int start = lo;
+			while (start < hi) {
+				int end = start + ascendingRun(array, start, hi, ctor);
+				if (end - start < MIN_RUN) {
+					int forced = Math.min(start + MIN_RUN, hi);
+					binaryInsertionSort(array, start, forced, end, ctor);
+					end = forced;
+				}
+				if (runCount == runEnds.length) {
+					runEnds = Arrays.copyOf(runEnds, runCount * 2);
+				}
+				runEnds[runCount++] = end;
+				start = end;
+			}
+		}
+	}
+
+	/**
+	 * 从lo开始的顺串长度，严格递减的顺串翻转为递增（严格递减才翻转，以保证稳定）
+	 */
+	private static <T> int ascendingRun(T[] array, int lo, int hi, Comparator<? super T> ctor) {
+		int runHi = lo + 1;
+		if (runHi == hi) return 1;
+		if (ctor.compare(array[runHi++], array[lo]) < 0) {
+			while (runHi < hi && ctor.compare(array[runHi], array[runHi - 1]) < 0) {
+				runHi++;
+			}
+			for (int i = lo, j = runHi - 1; i < j; i++, j--) {
+				T t = array[i];
+				array[i] = array[j];
+				array[j] = t;
+			}
+		} else {
+			while (runHi < hi && ctor.compare(array[runHi], array[runHi - 1]) >= 0) {
+				runHi++;
+			}
+		}
+		return runHi - lo;
+	}
+
+	/**
+	 * 二分插入排序，[lo, start)已有序
+	 */
+	private static <T> void binaryInsertionSort(T[] array, int lo, int hi, int start, Comparator<? super T> ctor) {
+		for (; start < hi; start++) {
+			T pivot = array[start];
+			int left = lo;
+			int right = start;
+			// 插入到相等元素之后，保证稳定
+			while (left < right) {
+				int mid = (left + right) >>> 1;
+				if (ctor.compare(pivot, array[mid]) < 0) {
+					right = mid;
+				} else {
+					left = mid + 1;
+				}
+			}
+			System.arraycopy(array, left, array, left + 1, start - left);
+			array[left] = pivot;
+		}
+	}
+
+	/**
+	 * 排序第[runLo, runHi)个顺串组成的区间
+	 * <p>toAux为true时结果写入辅助数组，否则写入原数组；左右两半的结果写入另一个数组，再归并到目标数组</p>
+	 */
+	@SuppressWarnings("serial")
+	private static class RunsTask<T> extends RecursiveAction {
+		final T[] array;
+		final T[] aux;
+		final int[] bounds;
+		final int runLo;
+		final int runHi;
+		final boolean toAux;
+		final Comparator<? super T> ctor;
+
+		RunsTask(T[] array, T[] aux, int[] bounds, int runLo, int runHi, boolean toAux, Comparator<? super T> ctor) {
+			this.array = array;
+			this.aux = aux;
+			this.bounds = bounds;
+			this.runLo = runLo;
+			this.runHi = runHi;
+			this.toAux = toAux;
+			this.ctor = ctor;
+		}
+
+		@Override
+		protected void compute() {
+			int lo = bounds[runLo];
+			int hi = bounds[runHi];
+			if (runHi - runLo == 1) {
+				// 顺串本身在原数组中已有序
+				if (toAux) {
+					System.arraycopy(array, lo, aux, lo, hi - lo);
+				}
+				return;
+			}
+			int runMid = splitRun(lo, hi);
+			RunsTask<T> left = new RunsTask<>(array, aux, bounds, runLo, runMid, !toAux, ctor);
+			RunsTask<T> right = new RunsTask<>(array, aux, bounds, runMid, runHi, !toAux, ctor);
+			if (hi - lo > SEQUENTIAL_THRESHOLD) {
+				invokeAll(left, right);
+			} else {
+				left.compute();
+				right.compute();
+			}
+			T[] src = toAux ? array : aux;
+			T[] dst = toAux ? aux : array;
+			new MergeTask<>(src, lo, bounds[runMid], bounds[runMid], hi, dst, lo, ctor).compute();
+		}
+
+		/**
+		 * 按元素个数二分顺串，返回右半部分的第一个顺串
+		 */
+		private int splitRun(int lo, int hi) {
+			int middle = (lo + hi) >>> 1;
+			int left = runLo + 1;
+			int right = runHi - 1;
+			while (left < right) {
+				int mid = (left + right) >>> 1;
+				if (bounds[mid] < middle) {
+					left = mid + 1;
+				} else {
+					right = mid;
+				}
+			}
+			return left;
+		}
+	}
+
+	/**
+	 * 归并src的[lo1, hi1)与[lo2, hi2)到dst的dstLo开始的位置，相等时左边的元素在前
+	 */
+	@SuppressWarnings("serial")
+	private static class MergeTask<T> extends RecursiveAction {
+		final T[] src;
+		final int lo1;
+		final int hi1;
+		final int lo2;
+		final int hi2;
+		final T[] dst;
+		final int dstLo;
+		final Comparator<? super T> ctor;
+
+		MergeTask(T[] src, int lo1, int hi1, int lo2, int hi2, T[] dst, int dstLo, Comparator<? super T> ctor) {
+			this.src = src;
+			this.lo1 = lo1;
+			this.hi1 = hi1;
+			this.lo2 = lo2;
+			this.hi2 = hi2;
+			this.dst = dst;
+			this.dstLo = dstLo;
+			this.ctor = ctor;
+		}
+
+		@Override
+		protected void compute() {
+			int len1 = hi1 - lo1;
+			int len2 = hi2 - lo2;
+			if (len1 == 0 || len2 == 0 || ctor.compare(src[hi1 - 1], src[lo2]) <= 0) {
+				// 左边整体不大于右边，直接拷贝
+				System.arraycopy(src, lo1, dst, dstLo, len1);
+				System.arraycopy(src, lo2, dst, dstLo + len1, len2);
+				return;
+			}
+			if (len1 + len2 <= SEQUENTIAL_THRESHOLD) {
+				merge();
+				return;
+			}
+			int split1;
+			int split2;
+			if (len1 >= len2) {
+				// 左边中间元素之前的部分 + 右边小于它的部分
+				split1 = (lo1 + hi1) >>> 1;
+				split2 = lowerBound(src, lo2, hi2, src[split1]);
+			} else {
+				// 右边中间元素之前的部分 + 左边不大于它的部分
+				split2 = (lo2 + hi2) >>> 1;
+				split1 = upperBound(src, lo1, hi1, src[split2]);
+			}
+			int dstSplit = dstLo + (split1 - lo1) + (split2 - lo2);
+			invokeAll(new MergeTask<>(src, lo1, split1, lo2, split2, dst, dstLo, ctor),
+					new MergeTask<>(src, split1, hi1, split2, hi2, dst, dstSplit, ctor));
+		}
+
+		private void merge() {
+			int i = lo1;
+			int j = lo2;
+			int k = dstLo;
+			while (i < hi1 && j < hi2) {
+				if (ctor.compare(src[j], src[i]) < 0) {
+					dst[k++] = src[j++];
+				} else {
+					dst[k++] = src[i++];
+				}
+			}
+			System.arraycopy(src, i, dst, k, hi1 - i);
+			System.arraycopy(src, j, dst, k + hi1 - i, hi2 - j);
+		}
+
+		/**
+		 * 第一个不小于key的位置
+		 */
+		private int lowerBound(T[] array, int lo, int hi, T key) {
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (ctor.compare(array[mid], key) < 0) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			return lo;
+		}
+
+		/**
+		 * 第一个大于key的位置
+		 */
+		private int upperBound(T[] array, int lo, int hi, T key) {
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (ctor.compare(array[mid], key) <= 0) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			return lo;
+		}
+	}
+}
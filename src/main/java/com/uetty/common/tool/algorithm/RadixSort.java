@@ -0,0 +1,425 @@
+package com.uetty.common.tool.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 基数排序
+ * <p>int[]、long[]：LSD（低位优先）基数排序，每8位一轮，最高一轮翻转符号位使负数排在前面；
+ * 所有轮次的计数在一次扫描中完成，所有数据某一轮的数字都相同时跳过该轮（例如时间戳的高位），排序时间与数据量成线性关系</p>
+ * <p>String[]：先按首字符做一轮MSD（高位优先）分桶，各桶再用多关键字快速排序（三路基数快速排序）并行排序，顺序与String.compareTo一致</p>
+ * <p>数据量较大时，计数阶段把数组分段交给ForkJoinPool并行统计后再合并。
+ * 排序使用的辅助数组保存在实例中，同一个实例重复排序时复用，因此实例不是线程安全的</p>
+ * @author Vince
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class RadixSort {
+
+	private static final int RADIX_BITS = 8;
+	private static final int RADIX = 1 << RADIX_BITS;
+	private static final int RADIX_MASK = RADIX - 1;
+	/**
+	 * 字符串首字符分桶的个数：空字符串一个桶，其余每个char一个桶
+	 */
+	private static final int CHAR_BUCKETS = Character.MAX_VALUE + 2;
+	/**
+	 * 不超过该长度时直接使用比较排序，基数排序的计数数组开销不划算
+	 */
+	private static final int SMALL_ARRAY_SIZE = 256;
+	/**
+	 * 多关键字快速排序中，不超过该长度的区间使用插入排序
+	 */
+	private static final int INSERTION_SORT_THRESHOLD = 12;
+
+	private int[] intBuffer;
+	private long[] longBuffer;
+	private String[] stringBuffer;
+	private ForkJoinPool pool;
+	private int parallelThreshold = 1 << 16;
+
+	/**
+	 * 并行计算使用的线程池
+	 * @param pool 为空时使用公共的ForkJoinPool
+	 * @return 链式返回自身
+	 */
+	public RadixSort setPool(ForkJoinPool pool) {
+		this.pool = pool;
+		return this;
+	}
+
+	/**
+	 * 并行的数据量分界，计数阶段每个分段的数据量不超过该值，数组长度不超过该值时不并行
+	 * @param parallelThreshold 分段的数据量
+	 * @return 链式返回自身
+	 */
+	public RadixSort setParallelThreshold(int parallelThreshold) {
+		this.parallelThreshold = Math.max(parallelThreshold, SMALL_ARRAY_SIZE);
+		return this;
+	}
+
+	/**
+	 * 释放复用的辅助数组
+	 */
+	public void releaseBuffers() {
+		intBuffer = null;
+		longBuffer = null;
+		stringBuffer = null;
+	}
+
+	private ForkJoinPool pool() {
+		return pool != null ? pool : ForkJoinPool.commonPool();
+	}
+
+	public void sort(int[] array) {
+		int size = array.length;
+		if (size <= SMALL_ARRAY_SIZE) {
+			SortTool.quickSort(array);
+			return;
+		}
+		int passes = Integer.SIZE / RADIX_BITS;
+		int[][] counts = size > parallelThreshold
+				? pool().invoke(new IntHistogramTask(array, 0, size, parallelThreshold))
+				: intHistogram(array, 0, size);
+		if (intBuffer == null || intBuffer.length < size) {
+			intBuffer = new int[size];
+		}
+		int[] src = array;
+		int[] dst = intBuffer;
+		for (int pass = 0; pass < passes; pass++) {
+			int shift = pass * RADIX_BITS;
+			int[] count = counts[pass];
+			if (count[((src[0] ^ Integer.MIN_VALUE) >>> shift) & RADIX_MASK] == size) continue;
+			toOffsets(count);
+			for (int i = 0; i < size; i++) {
+				int value = src[i];
+				dst[count[((value ^ Integer.MIN_VALUE) >>> shift) & RADIX_MASK]++] = value;
+			}
+			int[] t = src;
+			src = dst;
+			dst = t;
+		}
+		if (src != array) {
+			System.arraycopy(src, 0, array, 0, size);
+		}
+	}
+
+	public void sort(long[] array) {
+		int size = array.length;
+		if (size <= SMALL_ARRAY_SIZE) {
+			SortTool.quickSort(array);
+			return;
+		}
+		int passes = Long.SIZE / RADIX_BITS;
+		int[][] counts = size > parallelThreshold
+				? pool().invoke(new LongHistogramTask(array, 0, size, parallelThreshold))
+				: longHistogram(array, 0, size);
+		if (longBuffer == null || longBuffer.length < size) {
+			longBuffer = new long[size];
+		}
+		long[] src = array;
+		long[] dst = longBuffer;
+		for (int pass = 0; pass < passes; pass++) {
+			int shift = pass * RADIX_BITS;
+			int[] count = counts[pass];
+			if (count[(int) ((src[0] ^ Long.MIN_VALUE) >>> shift) & RADIX_MASK] == size) continue;
+			toOffsets(count);
+			for (int i = 0; i < size; i++) {
+				long value = src[i];
+				dst[count[(int) ((value ^ Long.MIN_VALUE) >>> shift) & RADIX_MASK]++] = value;
+			}
+			long[] t = src;
+			src = dst;
+			dst = t;
+		}
+		if (src != array) {
+			System.arraycopy(src, 0, array, 0, size);
+		}
+	}
+
+	/**
+	 * 字符串排序，数组中不能有null
+	 */
+	public void sort(String[] array) {
+		int size = array.length;
+		if (size <= parallelThreshold) {
+			multikeySort(array, 0, size, 0);
+			return;
+		}
+		// 按首字符分桶（MSD的第一轮）
+		int[] count = pool().invoke(new StringHistogramTask(array, 0, size, parallelThreshold));
+		int[] starts = count.clone();
+		toOffsets(starts);
+		if (stringBuffer == null || stringBuffer.length < size) {
+			stringBuffer = new String[size];
+		}
+		int[] offsets = starts.clone();
+		for (String str : array) {
+			stringBuffer[offsets[bucket(str)]++] = str;
+		}
+		System.arraycopy(stringBuffer, 0, array, 0, size);
+		// 释放对字符串的引用
+		Arrays.fill(stringBuffer, 0, size, null);
+
+		// 各桶首字符相同，从第二个字符开始并行排序，空字符串的桶无需排序
+		List<RecursiveAction> tasks = new ArrayList<>();
+		for (int bucket = 1; bucket < CHAR_BUCKETS; bucket++) {
+			if (count[bucket] > 1) {
+				tasks.add(new StringSortTask(array, starts[bucket], starts[bucket] + count[bucket]));
+			}
+		}
+		ForkJoinPool forkJoinPool = pool();
+		for (RecursiveAction task : tasks) {
+			forkJoinPool.execute(task);
+		}
+		for (RecursiveAction task : tasks) {
+			task.join();
+		}
+	}
+
+	/**
+	 * 计数转为各数字的起始位置
+	 */
+	private static void toOffsets(int[] count) {
+		int sum = 0;
+		for (int i = 0; i < count.length; i++) {
+			int c = count[i];
+			count[i] = sum;
+			sum += c;
+		}
+	}
+
+	private static int[][] intHistogram(int[] array, int from, int to) {
+		int[][] counts = new int[Integer.SIZE / RADIX_BITS][RADIX];
+		for (int i = from; i < to; i++) {
+			int value = array[i] ^ Integer.MIN_VALUE;
+			counts[0][value & RADIX_MASK]++;
+			counts[1][(value >>> 8) & RADIX_MASK]++;
+			counts[2][(value >>> 16) & RADIX_MASK]++;
+			counts[3][value >>> 24]++;
+		}
+		return counts;
+	}
+
+	private static int[][] longHistogram(long[] array, int from, int to) {
+		int passes = Long.SIZE / RADIX_BITS;
+		int[][] counts = new int[passes][RADIX];
+		for (int i = from; i < to; i++) {
+			long value = array[i] ^ Long.MIN_VALUE;
+			for (int pass = 0; pass < passes; pass++) {
+				counts[pass][(int) (value >>> (pass * RADIX_BITS)) & RADIX_MASK]++;
+			}
+		}
+		return counts;
+	}
+
+	private static int[] stringHistogram(String[] array, int from, int to) {
+		int[] count = new int[CHAR_BUCKETS];
+		for (int i = from; i < to; i++) {
+			count[bucket(array[i])]++;
+		}
+		return count;
+	}
+
+	private static int bucket(String str) {
+		return str.isEmpty() ? 0 : str.charAt(0) + 1;
+	}
+
+	private static int[][] merge(int[][] counts1, int[][] counts2) {
+		for (int pass = 0; pass < counts1.length; pass++) {
+			merge(counts1[pass], counts2[pass]);
+		}
+		return counts1;
+	}
+
+	private static int[] merge(int[] count1, int[] count2) {
+		for (int i = 0; i < count1.length; i++) {
+			count1[i] += count2[i];
+		}
+		return count1;
+	}
+
+	/**
+	 * 并行计数：分段统计后合并
+	 */
+	@SuppressWarnings("serial")
+	private static class IntHistogramTask extends RecursiveTask<int[][]> {
+		final int[] array;
+		final int from;
+		final int to;
+		final int threshold;
+
+		IntHistogramTask(int[] array, int from, int to, int threshold) {
+			this.array = array;
+			this.from = from;
+			this.to = to;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected int[][] compute() {
+			if (to - from <= threshold) {
+				return intHistogram(array, from, to);
+			}
+			int mid = (from + to) >>> 1;
+			IntHistogramTask left = new IntHistogramTask(array, from, mid, threshold);
+			left.fork();
+			int[][] right = new IntHistogramTask(array, mid, to, threshold).compute();
+			return merge(left.join(), right);
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private static class LongHistogramTask extends RecursiveTask<int[][]> {
+		final long[] array;
+		final int from;
+		final int to;
+		final int threshold;
+
+		LongHistogramTask(long[] array, int from, int to, int threshold) {
+			this.array = array;
+			this.from = from;
+			this.to = to;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected int[][] compute() {
+			if (to - from <= threshold) {
+				return longHistogram(array, from, to);
+			}
+			int mid = (from + to) >>> 1;
+			LongHistogramTask left = new LongHistogramTask(array, from, mid, threshold);
+			left.fork();
+			int[][] right = new LongHistogramTask(array, mid, to, threshold).compute();
+			return merge(left.join(), right);
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private static class StringHistogramTask extends RecursiveTask<int[]> {
+		final String[] array;
+		final int from;
+		final int to;
+		final int threshold;
+
+		StringHistogramTask(String[] array, int from, int to, int threshold) {
+			this.array = array;
+			this.from = from;
+			this.to = to;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected int[] compute() {
+			if (to - from <= threshold) {
+				return stringHistogram(array, from, to);
+			}
+			int mid = (from + to) >>> 1;
+			StringHistogramTask left = new StringHistogramTask(array, from, mid, threshold);
+			left.fork();
+			int[] right = new StringHistogramTask(array, mid, to, threshold).compute();
+			return merge(left.join(), right);
+		}
+	}
+
+	/**
+	 * 排序一个首字符相同的桶
+	 */
+	@SuppressWarnings("serial")
+	private static class StringSortTask extends RecursiveAction {
+		final String[] array;
+		final int from;
+		final int to;
+
+		StringSortTask(String[] array, int from, int to) {
+			this.array = array;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			multikeySort(array, from, to, 1);
+		}
+	}
+
+	/**
+	 * 多关键字快速排序：以第depth个字符三路分区，小于、大于的部分按同一字符继续排序，等于的部分比较下一个字符
+	 * @param depth [lo, hi)区间内所有字符串的前depth个字符都相同
+	 */
+	private static void multikeySort(String[] array, int lo, int hi, int depth) {
+		while (hi - lo > INSERTION_SORT_THRESHOLD) {
+			int mid = (lo + hi) >>> 1;
+			int medianChar = median(charAt(array[lo], depth), charAt(array[mid], depth), charAt(array[hi - 1], depth));
+			int lt = lo;
+			int gt = hi;
+			int i = lo;
+			while (i < gt) {
+				int c = charAt(array[i], depth);
+				if (c < medianChar) {
+					swap(array, lt++, i++);
+				} else if (c > medianChar) {
+					swap(array, i, --gt);
+				} else {
+					i++;
+				}
+			}
+			multikeySort(array, lo, lt, depth);
+			multikeySort(array, gt, hi, depth);
+			if (medianChar < 0) return; // 等于的部分都已到字符串末尾，全部相等
+			// 等于的部分比较下一个字符，循环代替递归，相同前缀很长时也不会栈溢出
+			lo = lt;
+			hi = gt;
+			depth++;
+		}
+		insertionSort(array, lo, hi, depth);
+	}
+
+	private static void insertionSort(String[] array, int lo, int hi, int depth) {
+		for (int i = lo + 1; i < hi; i++) {
+			String value = array[i];
+			int j = i - 1;
+			while (j >= lo && greater(array[j], value, depth)) {
+				array[j + 1] = array[j];
+				j--;
+			}
+			array[j + 1] = value;
+		}
+	}
+
+	/**
+	 * 已知前depth个字符相同，从第depth个字符开始比较
+	 */
+	private static boolean greater(String str1, String str2, int depth) {
+		int len = Math.min(str1.length(), str2.length());
+		for (int i = depth; i < len; i++) {
+			char c1 = str1.charAt(i);
+			char c2 = str2.charAt(i);
+			if (c1 != c2) return c1 > c2;
+		}
+		return str1.length() > str2.length();
+	}
+
+	private static int charAt(String str, int index) {
+		return index < str.length() ? str.charAt(index) : -1;
+	}
+
+	private static int median(int a, int b, int c) {
+		if (a < b) {
+			if (b < c) return b;
+			return a < c ? c : a;
+		}
+		if (a < c) return a;
+		return b < c ? c : b;
+	}
+
+	private static void swap(String[] array, int i, int j) {
+		String t = array[i];
+		array[i] = array[j];
+		array[j] = t;
+	}
+}
@@ -2,10 +2,21 @@ package com.uetty.common.tool.algorithm;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 @SuppressWarnings("unused")
 public class SortTool {
 
+	/**
+	 * 不超过该长度的区间使用插入排序
+	 */
+	private static final int INSERTION_SORT_THRESHOLD = 24;
+	/**
+	 * 并行排序时，不超过该长度的区间不再拆分子任务
+	 */
+	private static final int PARALLEL_SORT_THRESHOLD = 1 << 16;
+
 	/**
 	 * 选择排序
 	 * <p>每次与最大值相比，找出最大值的位置
@@ -127,6 +138,451 @@ public class SortTool {
 		quickSort.execute();
 	}
 	
+	/**
+	 * 快速排序（内省排序）
+	 * <p>三数取中的快速排序，递归层数超过2倍log2(n)时该区间改用堆排序，保证最坏O(nlogn)，小区间使用插入排序。原地排序，不产生装箱对象
+	 * @param array 需要排序的数组
+	 */
+	public static void quickSort(int[] array) {
+		introSort(array, 0, array.length, maxDepth(array.length));
+	}
+
+	/**
+	 * 多线程快速排序
+	 * <p>分区后的左右区间作为ForkJoinPool的子任务并行排序，区间较小时在当前线程顺序排序
+	 * @param array 需要排序的数组
+	 */
+	public static void parallelQuickSort(int[] array) {
+		ForkJoinPool.commonPool().invoke(new IntSortTask(array, 0, array.length, maxDepth(array.length)));
+	}
+
+	/**
+	 * 快速排序（内省排序）
+	 * <p>三数取中的快速排序，递归层数超过2倍log2(n)时该区间改用堆排序，保证最坏O(nlogn)，小区间使用插入排序。原地排序，不产生装箱对象
+	 * @param array 需要排序的数组
+	 */
+	public static void quickSort(long[] array) {
+		introSort(array, 0, array.length, maxDepth(array.length));
+	}
+
+	/**
+	 * 多线程快速排序
+	 * <p>分区后的左右区间作为ForkJoinPool的子任务并行排序，区间较小时在当前线程顺序排序
+	 * @param array 需要排序的数组
+	 */
+	public static void parallelQuickSort(long[] array) {
+		ForkJoinPool.commonPool().invoke(new LongSortTask(array, 0, array.length, maxDepth(array.length)));
+	}
+
+	/**
+	 * 快速排序（内省排序），排序规则同{@link java.util.Arrays#sort(double[])}
+	 * <p>-0.0排在0.0之前，NaN排在最后
+	 * @param array 需要排序的数组
+	 */
+	public static void quickSort(double[] array) {
+		int end = moveNaNToEnd(array);
+		int negativeZeros = positiveZeros(array, end);
+		introSort(array, 0, end, maxDepth(end));
+		restoreNegativeZeros(array, end, negativeZeros);
+	}
+
+	/**
+	 * 多线程快速排序，排序规则同{@link #quickSort(double[])}
+	 * @param array 需要排序的数组
+	 */
+	public static void parallelQuickSort(double[] array) {
+		int end = moveNaNToEnd(array);
+		int negativeZeros = positiveZeros(array, end);
+		ForkJoinPool.commonPool().invoke(new DoubleSortTask(array, 0, end, maxDepth(end)));
+		restoreNegativeZeros(array, end, negativeZeros);
+	}
+
+	/**
+	 * NaN与任何数比较都是false，先移到数组末尾，不参与排序
+	 * @return 非NaN区间的结束位置
+	 */
+	private static int moveNaNToEnd(double[] array) {
+		int end = array.length;
+		for (int k = end - 1; k >= 0; k--) {
+			double value = array[k];
+			if (value != value) {
+				array[k] = array[--end];
+				array[end] = value;
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * -0.0 == 0.0，比较无法区分，先全部改为0.0，排序后再把相应个数的0.0改回-0.0
+	 * @return -0.0的个数
+	 */
+	private static int positiveZeros(double[] array, int end) {
+		int negativeZeros = 0;
+		for (int k = 0; k < end; k++) {
+			if (array[k] == 0.0d && Double.doubleToRawLongBits(array[k]) != 0L) {
+				array[k] = 0.0d;
+				negativeZeros++;
+			}
+		}
+		return negativeZeros;
+	}
+
+	private static void restoreNegativeZeros(double[] array, int end, int negativeZeros) {
+		if (negativeZeros == 0) return;
+		// 二分查找第一个0.0
+		int lo = 0;
+		int hi = end;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (array[mid] < 0.0d) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		for (int k = lo; k < lo + negativeZeros; k++) {
+			array[k] = -0.0d;
+		}
+	}
+
+	static int maxDepth(int size) {
+		return 2 * (32 - Integer.numberOfLeadingZeros(size));
+	}
+
+	private static void introSort(int[] array, int lo, int hi, int depth) {
+		while (hi - lo > INSERTION_SORT_THRESHOLD) {
+			if (depth-- == 0) {
+				heapSort(array, lo, hi);
+				return;
+			}
+			int split = partition(array, lo, hi);
+			// 较小的一边递归，较大的一边在循环中继续，递归深度不超过log2(n)
+			if (split - lo < hi - split) {
+				introSort(array, lo, split, depth);
+				lo = split;
+			} else {
+				introSort(array, split, hi, depth);
+				hi = split;
+			}
+		}
+		insertionSort(array, lo, hi);
+	}
+
+	/**
+	 * 三数取中后做Hoare分区，与中间值相等的数会均分到两边，大量重复数据时不会退化
+	 * @return 分割位置split，[lo, split)的值都不大于[split, hi)的值，两边均非空
+	 */
+	static int partition(int[] array, int lo, int hi) {
+		int mid = (lo + hi) >>> 1;
+		// 排好首、中、尾三个数，首尾两个数同时作为左右游标的哨兵
+		if (array[mid] < array[lo]) swap(array, lo, mid);
+		if (array[hi - 1] < array[mid]) {
+			swap(array, mid, hi - 1);
+			if (array[mid] < array[lo]) swap(array, lo, mid);
+		}
+		int medianValue = array[mid];
+		int i = lo;
+		int j = hi - 1;
+		while (true) {
+			do i++; while (array[i] < medianValue);
+			do j--; while (array[j] > medianValue);
+			if (i >= j) return j + 1;
+			swap(array, i, j);
+		}
+	}
+
+	static void insertionSort(int[] array, int lo, int hi) {
+		for (int i = lo + 1; i < hi; i++) {
+			int value = array[i];
+			int j = i - 1;
+			while (j >= lo && array[j] > value) {
+				array[j + 1] = array[j];
+				j--;
+			}
+			array[j + 1] = value;
+		}
+	}
+
+	private static void heapSort(int[] array, int lo, int hi) {
+		int size = hi - lo;
+		for (int i = size / 2 - 1; i >= 0; i--) {
+			siftDown(array, lo, i, size);
+		}
+		for (int last = size - 1; last > 0; last--) {
+			swap(array, lo, lo + last);
+			siftDown(array, lo, 0, last);
+		}
+	}
+
+	private static void siftDown(int[] array, int offset, int node, int size) {
+		int value = array[offset + node];
+		int child;
+		while ((child = 2 * node + 1) < size) {
+			if (child + 1 < size && array[offset + child + 1] > array[offset + child]) child++;
+			if (array[offset + child] <= value) break;
+			array[offset + node] = array[offset + child];
+			node = child;
+		}
+		array[offset + node] = value;
+	}
+
+	private static void swap(int[] array, int i, int j) {
+		int t = array[i];
+		array[i] = array[j];
+		array[j] = t;
+	}
+
+	/**
+	 * 并行排序区间[lo, hi)的任务
+	 */
+	@SuppressWarnings("serial")
+	private static class IntSortTask extends RecursiveAction {
+		final int[] array;
+		final int lo;
+		final int hi;
+		final int depth;
+
+		IntSortTask(int[] array, int lo, int hi, int depth) {
+			this.array = array;
+			this.lo = lo;
+			this.hi = hi;
+			this.depth = depth;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo <= PARALLEL_SORT_THRESHOLD || depth == 0) {
+				introSort(array, lo, hi, depth);
+				return;
+			}
+			int split = partition(array, lo, hi);
+			invokeAll(new IntSortTask(array, lo, split, depth - 1), new IntSortTask(array, split, hi, depth - 1));
+		}
+	}
+
+	private static void introSort(long[] array, int lo, int hi, int depth) {
+		while (hi - lo > INSERTION_SORT_THRESHOLD) {
+			if (depth-- == 0) {
+				heapSort(array, lo, hi);
+				return;
+			}
+			int split = partition(array, lo, hi);
+			// 较小的一边递归，较大的一边在循环中继续，递归深度不超过log2(n)
+			if (split - lo < hi - split) {
+				introSort(array, lo, split, depth);
+				lo = split;
+			} else {
+				introSort(array, split, hi, depth);
+				hi = split;
+			}
+		}
+		insertionSort(array, lo, hi);
+	}
+
+	/**
+	 * 三数取中后做Hoare分区，与中间值相等的数会均分到两边，大量重复数据时不会退化
+	 * @return 分割位置split，[lo, split)的值都不大于[split, hi)的值，两边均非空
+	 */
+	static int partition(long[] array, int lo, int hi) {
+		int mid = (lo + hi) >>> 1;
+		// 排好首、中、尾三个数，首尾两个数同时作为左右游标的哨兵
+		if (array[mid] < array[lo]) swap(array, lo, mid);
+		if (array[hi - 1] < array[mid]) {
+			swap(array, mid, hi - 1);
+			if (array[mid] < array[lo]) swap(array, lo, mid);
+		}
+		long medianValue = array[mid];
+		int i = lo;
+		int j = hi - 1;
+		while (true) {
+			do i++; while (array[i] < medianValue);
+			do j--; while (array[j] > medianValue);
+			if (i >= j) return j + 1;
+			swap(array, i, j);
+		}
+	}
+
+	static void insertionSort(long[] array, int lo, int hi) {
+		for (int i = lo + 1; i < hi; i++) {
+			long value = array[i];
+			int j = i - 1;
+			while (j >= lo && array[j] > value) {
+				array[j + 1] = array[j];
+				j--;
+			}
+			array[j + 1] = value;
+		}
+	}
+
+	private static void heapSort(long[] array, int lo, int hi) {
+		int size = hi - lo;
+		for (int i = size / 2 - 1; i >= 0; i--) {
+			siftDown(array, lo, i, size);
+		}
+		for (int last = size - 1; last > 0; last--) {
+			swap(array, lo, lo + last);
+			siftDown(array, lo, 0, last);
+		}
+	}
+
+	private static void siftDown(long[] array, int offset, int node, int size) {
+		long value = array[offset + node];
+		int child;
+		while ((child = 2 * node + 1) < size) {
+			if (child + 1 < size && array[offset + child + 1] > array[offset + child]) child++;
+			if (array[offset + child] <= value) break;
+			array[offset + node] = array[offset + child];
+			node = child;
+		}
+		array[offset + node] = value;
+	}
+
+	private static void swap(long[] array, int i, int j) {
+		long t = array[i];
+		array[i] = array[j];
+		array[j] = t;
+	}
+
+	/**
+	 * 并行排序区间[lo, hi)的任务
+	 */
+	@SuppressWarnings("serial")
+	private static class LongSortTask extends RecursiveAction {
+		final long[] array;
+		final int lo;
+		final int hi;
+		final int depth;
+
+		LongSortTask(long[] array, int lo, int hi, int depth) {
+			this.array = array;
+			this.lo = lo;
+			this.hi = hi;
+			this.depth = depth;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo <= PARALLEL_SORT_THRESHOLD || depth == 0) {
+				introSort(array, lo, hi, depth);
+				return;
+			}
+			int split = partition(array, lo, hi);
+			invokeAll(new LongSortTask(array, lo, split, depth - 1), new LongSortTask(array, split, hi, depth - 1));
+		}
+	}
+
+	private static void introSort(double[] array, int lo, int hi, int depth) {
+		while (hi - lo > INSERTION_SORT_THRESHOLD) {
+			if (depth-- == 0) {
+				heapSort(array, lo, hi);
+				return;
+			}
+			int split = partition(array, lo, hi);
+			// 较小的一边递归，较大的一边在循环中继续，递归深度不超过log2(n)
+			if (split - lo < hi - split) {
+				introSort(array, lo, split, depth);
+				lo = split;
+			} else {
+				introSort(array, split, hi, depth);
+				hi = split;
+			}
+		}
+		insertionSort(array, lo, hi);
+	}
+
+	/**
+	 * 三数取中后做Hoare分区，与中间值相等的数会均分到两边，大量重复数据时不会退化
+	 * @return 分割位置split，[lo, split)的值都不大于[split, hi)的值，两边均非空
+	 */
+	private static int partition(double[] array, int lo, int hi) {
+		int mid = (lo + hi) >>> 1;
+		// 排好首、中、尾三个数，首尾两个数同时作为左右游标的哨兵
+		if (array[mid] < array[lo]) swap(array, lo, mid);
+		if (array[hi - 1] < array[mid]) {
+			swap(array, mid, hi - 1);
+			if (array[mid] < array[lo]) swap(array, lo, mid);
+		}
+		double medianValue = array[mid];
+		int i = lo;
+		int j = hi - 1;
+		while (true) {
+			do i++; while (array[i] < medianValue);
+			do j--; while (array[j] > medianValue);
+			if (i >= j) return j + 1;
+			swap(array, i, j);
+		}
+	}
+
+	private static void insertionSort(double[] array, int lo, int hi) {
+		for (int i = lo + 1; i < hi; i++) {
+			double value = array[i];
+			int j = i - 1;
+			while (j >= lo && array[j] > value) {
+				array[j + 1] = array[j];
+				j--;
+			}
+			array[j + 1] = value;
+		}
+	}
+
+	private static void heapSort(double[] array, int lo, int hi) {
+		int size = hi - lo;
+		for (int i = size / 2 - 1; i >= 0; i--) {
+			siftDown(array, lo, i, size);
+		}
+		for (int last = size - 1; last > 0; last--) {
+			swap(array, lo, lo + last);
+			siftDown(array, lo, 0, last);
+		}
+	}
+
+	private static void siftDown(double[] array, int offset, int node, int size) {
+		double value = array[offset + node];
+		int child;
+		while ((child = 2 * node + 1) < size) {
+			if (child + 1 < size && array[offset + child + 1] > array[offset + child]) child++;
+			if (array[offset + child] <= value) break;
+			array[offset + node] = array[offset + child];
+			node = child;
+		}
+		array[offset + node] = value;
+	}
+
+	private static void swap(double[] array, int i, int j) {
+		double t = array[i];
+		array[i] = array[j];
+		array[j] = t;
+	}
+
+	/**
+	 * 并行排序区间[lo, hi)的任务
+	 */
+	@SuppressWarnings("serial")
+	private static class DoubleSortTask extends RecursiveAction {
+		final double[] array;
+		final int lo;
+		final int hi;
+		final int depth;
+
+		DoubleSortTask(double[] array, int lo, int hi, int depth) {
+			this.array = array;
+			this.lo = lo;
+			this.hi = hi;
+			this.depth = depth;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo <= PARALLEL_SORT_THRESHOLD || depth == 0) {
+				introSort(array, lo, hi, depth);
+				return;
+			}
+			int split = partition(array, lo, hi);
+			invokeAll(new DoubleSortTask(array, lo, split, depth - 1), new DoubleSortTask(array, split, hi, depth - 1));
+		}
+	}
+
 	public static void main(String[] args) throws InterruptedException {
 		List<Integer> list = new ArrayList<>();
 		for (int i = 0; i < 20000000; i++) {
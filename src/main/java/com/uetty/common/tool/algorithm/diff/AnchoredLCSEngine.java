@@ -0,0 +1,140 @@
+package com.uetty.common.tool.algorithm.diff;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 带预处理的LCS引擎，包装其他引擎使用
+ * <p>1. 线性时间去掉两个序列共同的前缀和后缀</p>
+ * <p>2. 在剩余区间中找出在两边都只出现一次的数据元，取其位置的最长递增子序列作为锚点（patience diff），把区间切分为若干小窗口</p>
+ * <p>3. 每个小窗口重复以上步骤，找不到锚点时才交给被包装的引擎计算</p>
+ * <p>真实文本（配置文件、代码等）首尾大量相同、唯一行较多，昂贵的LCS计算只会落在很小的窗口上。
+ * 锚点优先的策略得到的不一定是严格最长的公共子序列，但结果更符合人的阅读习惯</p>
+ * @author : Vince
+ */
+public class AnchoredLCSEngine implements LCSEngine {
+
+    private final LCSEngine delegate;
+
+    public AnchoredLCSEngine() {
+        this(new HirschbergLCSEngine());
+    }
+
+    /**
+     * @param delegate 窗口内找不到锚点时使用的引擎
+     */
+    public AnchoredLCSEngine(LCSEngine delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public int[] match(int[] seq1, int[] seq2) {
+        int[] matches = new int[seq1.length];
+        Arrays.fill(matches, -1);
+        matchWindow(seq1, 0, seq1.length, seq2, 0, seq2.length, matches);
+        return matches;
+    }
+
+    private void matchWindow(int[] seq1, int lo1, int hi1, int[] seq2, int lo2, int hi2, int[] matches) {
+        // 共同前缀
+        while (lo1 < hi1 && lo2 < hi2 && seq1[lo1] == seq2[lo2]) {
+            matches[lo1++] = lo2++;
+        }
+        // 共同后缀
+        while (lo1 < hi1 && lo2 < hi2 && seq1[hi1 - 1] == seq2[hi2 - 1]) {
+            matches[--hi1] = --hi2;
+        }
+        if (lo1 >= hi1 || lo2 >= hi2) return;
+
+        int[][] anchors = uniqueAnchors(seq1, lo1, hi1, seq2, lo2, hi2);
+        if (anchors.length == 0) {
+            delegateWindow(seq1, lo1, hi1, seq2, lo2, hi2, matches);
+            return;
+        }
+        int prev1 = lo1;
+        int prev2 = lo2;
+        for (int[] anchor : anchors) {
+            matchWindow(seq1, prev1, anchor[0], seq2, prev2, anchor[1], matches);
+            matches[anchor[0]] = anchor[1];
+            prev1 = anchor[0] + 1;
+            prev2 = anchor[1] + 1;
+        }
+        matchWindow(seq1, prev1, hi1, seq2, prev2, hi2, matches);
+    }
+
+    private void delegateWindow(int[] seq1, int lo1, int hi1, int[] seq2, int lo2, int hi2, int[] matches) {
+        int[] sub = delegate.match(Arrays.copyOfRange(seq1, lo1, hi1), Arrays.copyOfRange(seq2, lo2, hi2));
+        for (int i = 0; i < sub.length; i++) {
+            if (sub[i] >= 0) {
+                matches[lo1 + i] = lo2 + sub[i];
+            }
+        }
+    }
+
+    /**
+     * 找出窗口内两边都只出现一次的数据元，取位置的最长递增子序列
+     * @return 锚点位置对{序列1下标, 序列2下标}，两个下标均递增
+     */
+    static int[][] uniqueAnchors(int[] seq1, int lo1, int hi1, int[] seq2, int lo2, int hi2) {
+        // 值：{序列1出现次数, 序列2出现次数, 序列2中的位置}
+        Map<Integer, int[]> occurs = new HashMap<>();
+        for (int i = lo1; i < hi1; i++) {
+            int[] occur = occurs.get(seq1[i]);
+            if (occur == null) {
+                occur = new int[3];
+                occurs.put(seq1[i], occur);
+            }
+            occur[0]++;
+        }
+        for (int j = lo2; j < hi2; j++) {
+            int[] occur = occurs.get(seq2[j]);
+            if (occur != null) {
+                occur[1]++;
+                occur[2] = j;
+            }
+        }
+        List<int[]> candidates = new ArrayList<>();
+        for (int i = lo1; i < hi1; i++) {
+            int[] occur = occurs.get(seq1[i]);
+            if (occur[0] == 1 && occur[1] == 1) {
+                candidates.add(new int[]{i, occur[2]});
+            }
+        }
+        return longestIncreasing(candidates);
+    }
+
+    /**
+     * 候选锚点已按序列1下标递增，按序列2下标求最长递增子序列（patience sorting）
+     */
+    private static int[][] longestIncreasing(List<int[]> candidates) {
+        int size = candidates.size();
+        if (size == 0) return new int[0][];
+        int[] tails = new int[size]; // tails[len]：长度为len + 1的递增子序列末尾的候选下标
+        int[] prevs = new int[size];
+        int len = 0;
+        for (int c = 0; c < size; c++) {
+            int pos2 = candidates.get(c)[1];
+            int lo = 0;
+            int hi = len;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (candidates.get(tails[mid])[1] < pos2) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            prevs[c] = lo > 0 ? tails[lo - 1] : -1;
+            tails[lo] = c;
+            if (lo == len) len++;
+        }
+        int[][] anchors = new int[len][];
+        for (int c = tails[len - 1], k = len - 1; k >= 0; c = prevs[c], k--) {
+            anchors[k] = candidates.get(c);
+        }
+        return anchors;
+    }
+}
@@ -0,0 +1,118 @@
+package com.uetty.common.tool.algorithm.diff;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 位并行（Allison-Dix / Hyyrö）方式计算最长公共子序列
+ * <p>序列1的每个位置对应一个bit，每个数据元预先生成一个匹配位掩码，序列2每前进一个数据元，只需对整行做一次加法和位运算，一个long可同时处理64个单元格</p>
+ * <p>第i行位向量中，前j位里0的个数即为序列2前i个数据元与序列1前j个数据元的LCS长度，回溯时由保存的各行位向量还原</p>
+ * <p>每行只保存N/64个long，内存消耗约为完整LCS表（每单元格3字节）的1/24，适合字符级别（{@link CharactMetadataPicker}）这类数据元数量多、种类少的比较</p>
+ * @author : Vince
+ */
+public class BitParallelLCSEngine implements LCSEngine {
+
+    private static final int WORD_SHIFT = 6;
+    private static final int WORD_BITS = 1 << WORD_SHIFT;
+
+    @Override
+    public int[] match(int[] seq1, int[] seq2) {
+        int n = seq1.length;
+        int m = seq2.length;
+        int[] matches = new int[n];
+        Arrays.fill(matches, -1);
+        if (n == 0 || m == 0) return matches;
+
+        int words = (n + WORD_BITS - 1) >>> WORD_SHIFT;
+        Map<Integer, long[]> peq = buildMatchMasks(seq1, words);
+
+        // rows[i]为处理完序列2前i个数据元后的位向量，第0行全为1
+        long[][] rows = new long[m + 1][];
+        long[] v = new long[words];
+        Arrays.fill(v, -1L);
+        rows[0] = v;
+        for (int i = 0; i < m; i++) {
+            long[] mask = peq.get(seq2[i]);
+            long[] next = new long[words];
+            if (mask == null) {
+                System.arraycopy(v, 0, next, 0, words);
+            } else {
+                long carry = 0;
+                for (int k = 0; k < words; k++) {
+                    long vk = v[k];
+                    long u = vk & mask[k];
+                    // u是vk的子集，vk - u不会产生借位，只有加法需要处理进位
+                    long sum = vk + u;
+                    long c = Long.compareUnsigned(sum, vk) < 0 ? 1 : 0;
+                    long total = sum + carry;
+                    if (carry != 0 && total == 0) c = 1;
+                    next[k] = total | (vk & ~mask[k]);
+                    carry = c;
+                }
+            }
+            rows[i + 1] = next;
+            v = next;
+        }
+
+        lookback(seq1, seq2, rows, matches);
+        return matches;
+    }
+
+    private Map<Integer, long[]> buildMatchMasks(int[] seq1, int words) {
+        Map<Integer, long[]> peq = new HashMap<>();
+        for (int j = 0; j < seq1.length; j++) {
+            long[] mask = peq.get(seq1[j]);
+            if (mask == null) {
+                mask = new long[words];
+                peq.put(seq1[j], mask);
+            }
+            mask[j >>> WORD_SHIFT] |= 1L << j;
+        }
+        return peq;
+    }
+
+    private void lookback(int[] seq1, int[] seq2, long[][] rows, int[] matches) {
+        int i = seq2.length;
+        int j = seq1.length;
+        int count = prefixCount(rows[i], j);
+        int up = prefixCount(rows[i - 1], j);
+        while (i > 0 && j > 0 && count > 0) {
+            if (up == count) {
+                i--;
+                up = i > 0 ? prefixCount(rows[i - 1], j) : 0;
+            } else if (isOne(rows[i], j - 1)) {
+                // 左边的LCS长度与当前相同
+                if (!isOne(rows[i - 1], j - 1)) up--;
+                j--;
+            } else {
+                // 上边、左边都比当前小1，必为匹配
+                i--;
+                j--;
+                matches[j] = i;
+                count--;
+                up = i > 0 ? prefixCount(rows[i - 1], j) : 0;
+            }
+        }
+    }
+
+    private boolean isOne(long[] v, int pos) {
+        return (v[pos >>> WORD_SHIFT] & (1L << pos)) != 0;
+    }
+
+    /**
+     * 前len位中0的个数，即对应的LCS长度
+     */
+    private int prefixCount(long[] v, int len) {
+        int full = len >>> WORD_SHIFT;
+        int ones = 0;
+        for (int k = 0; k < full; k++) {
+            ones += Long.bitCount(v[k]);
+        }
+        int rest = len & (WORD_BITS - 1);
+        if (rest > 0) {
+            ones += Long.bitCount(v[full] & ((1L << rest) - 1));
+        }
+        return len - ones;
+    }
+}
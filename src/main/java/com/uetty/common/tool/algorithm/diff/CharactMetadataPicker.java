@@ -15,4 +15,18 @@ public class CharactMetadataPicker implements MetadataPicker {
         }
         return metas;
     }
-}
\ No newline at end of file
+
+    @Override
+    public Metadatas doPick(String str, SymbolTable symbolTable) {
+        int[] ids = new int[str.length()];
+        int[] ends = new int[str.length()];
+        for (int i = 0; i < str.length(); i++) {
+            ids[i] = symbolTable.intern(str, i, i + 1);
+            ends[i] = i + 1;
+        }
+        Metadatas metas = new Metadatas();
+        metas.setIds(ids);
+        metas.setEnds(ends);
+        return metas;
+    }
+}
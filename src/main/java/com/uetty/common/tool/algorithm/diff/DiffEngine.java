@@ -0,0 +1,110 @@
+package com.uetty.common.tool.algorithm.diff;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * 批量diff服务
+ * <p>每个线程持有一个{@link DiffWorker}，复用其中的缓冲数组；批量比较的任务分组后提交到线程池并行执行</p>
+ * @author : Vince
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class DiffEngine {
+
+    /**
+     * 每个提交到线程池的任务处理的文本对数量，减少小文本场景下的任务调度开销
+     */
+    private static final int BATCH_SIZE = 32;
+
+    private final ExecutorService executor;
+    private final ThreadLocal<DiffWorker> workers;
+
+    public DiffEngine(ExecutorService executor) {
+        this(executor, null, null);
+    }
+
+    /**
+     * @param executor 执行批量比较的线程池
+     * @param metadataPicker 数据元采拣器，为空时按单个字符采拣，需要是无状态（线程安全）的实现
+     * @param lcsEngine 公共子序列计算引擎，为空时使用复用的LCS表计算，需要是无状态（线程安全）的实现
+     */
+    public DiffEngine(ExecutorService executor, MetadataPicker metadataPicker, LCSEngine lcsEngine) {
+        this.executor = executor;
+        this.workers = ThreadLocal.withInitial(() -> new DiffWorker(metadataPicker, lcsEngine));
+    }
+
+    /**
+     * 在当前线程上比较
+     */
+    public LCSDiff.CommonInfo diff(String str1, String str2) {
+        return workers.get().diff(str1, str2);
+    }
+
+    /**
+     * 并行比较所有文本对
+     * @param pairs 文本对
+     * @return 与pairs顺序一致的比较结果
+     */
+    public List<LCSDiff.CommonInfo> diffAll(List<Pair> pairs) {
+        LCSDiff.CommonInfo[] results = new LCSDiff.CommonInfo[pairs.size()];
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int from = 0; from < pairs.size(); from += BATCH_SIZE) {
+            int start = from;
+            int end = Math.min(from + BATCH_SIZE, pairs.size());
+            tasks.add(() -> {
+                DiffWorker worker = workers.get();
+                for (int i = start; i < end; i++) {
+                    Pair pair = pairs.get(i);
+                    results[i] = worker.diff(pair.getText1(), pair.getText2());
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DiffException(e);
+        } catch (ExecutionException e) {
+            throw new DiffException(e.getCause());
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 待比较的文本对
+     */
+    public static class Pair {
+        private final String text1;
+        private final String text2;
+
+        public Pair(String text1, String text2) {
+            this.text1 = text1;
+            this.text2 = text2;
+        }
+
+        public String getText1() {
+            return text1;
+        }
+
+        public String getText2() {
+            return text2;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    public static class DiffException extends RuntimeException {
+
+        public DiffException(Throwable e) {
+            super(e);
+        }
+
+    }
+}
@@ -0,0 +1,119 @@
+package com.uetty.common.tool.algorithm.diff;
+
+import java.util.Arrays;
+
+/**
+ * 可复用的diff执行者，适合大量小文本的批量比较
+ * <p>符号表、字符数组、LCS表、匹配结果数组在多次diff之间复用，只在遇到更大的文本时扩容（保持历史最大值），
+ * 不像{@link LCSDiff}每次都重新分配并在结束后丢弃</p>
+ * <p>非线程安全，每个线程使用各自的实例，可通过{@link DiffEngine}统一管理</p>
+ * @author : Vince
+ */
+public class DiffWorker {
+
+    /**
+     * 复用LCS表的最大单元格数，超出时该次比较改用线性内存的引擎，避免个别大文本长期占用巨大的缓冲
+     */
+    private static final long MAX_TABLE_CELLS = 1 << 24;
+
+    private final MetadataPicker metadataPicker;
+    /**
+     * 为空时使用复用的LCS表计算
+     */
+    private final LCSEngine lcsEngine;
+    private final LCSEngine fallbackEngine = new HirschbergLCSEngine();
+    private final SymbolTable symbolTable = new SymbolTable();
+
+    private char[] chars1 = new char[0];
+    private char[] chars2 = new char[0];
+    private int[] table = new int[0];
+    private int[] matches = new int[0];
+
+    public DiffWorker() {
+        this(null, null);
+    }
+
+    /**
+     * @param metadataPicker 数据元采拣器，为空时按单个字符采拣，需要是无状态（线程安全）的实现
+     * @param lcsEngine 公共子序列计算引擎，为空时使用复用的LCS表计算
+     */
+    public DiffWorker(MetadataPicker metadataPicker, LCSEngine lcsEngine) {
+        this.metadataPicker = metadataPicker != null ? metadataPicker : new CharactMetadataPicker();
+        this.lcsEngine = lcsEngine;
+    }
+
+    public LCSDiff.CommonInfo diff(String str1, String str2) {
+        symbolTable.clear();
+        Metadatas metas1 = metadataPicker.doPick(str1, symbolTable);
+        Metadatas metas2 = metadataPicker.doPick(str2, symbolTable);
+        int[] ids1 = metas1.getIds();
+        int[] ids2 = metas2.getIds();
+
+        chars1 = fillChars(chars1, str1);
+        chars2 = fillChars(chars2, str2);
+
+        int[] result;
+        if (lcsEngine != null) {
+            result = lcsEngine.match(ids1, ids2);
+        } else if ((long) (ids1.length + 1) * (ids2.length + 1) > MAX_TABLE_CELLS) {
+            result = fallbackEngine.match(ids1, ids2);
+        } else {
+            result = matchByTable(ids1, ids2);
+        }
+        return LCSDiff.toCommonInfo(result, ids1.length, metas1.getEnds(), metas2.getEnds(), chars1, chars2);
+    }
+
+    private char[] fillChars(char[] buffer, String str) {
+        if (buffer.length < str.length()) {
+            buffer = new char[Math.max(str.length(), buffer.length * 2)];
+        }
+        str.getChars(0, str.length(), buffer, 0);
+        return buffer;
+    }
+
+    /**
+     * 在复用的一维数组上计算LCS表并回溯，结果写入复用的匹配数组
+     */
+    private int[] matchByTable(int[] ids1, int[] ids2) {
+        int n = ids1.length;
+        int m = ids2.length;
+        int width = n + 1;
+        int cells = width * (m + 1);
+        if (table.length < cells) {
+            table = new int[Math.max(cells, (int) Math.min(MAX_TABLE_CELLS, table.length * 2L))];
+        }
+        if (matches.length < n) {
+            matches = new int[Math.max(n, matches.length * 2)];
+        }
+        int[] t = table;
+        // 复用的数组中残留上次的数据，第0行、第0列需要重新置0
+        Arrays.fill(t, 0, width, 0);
+        for (int i = 1; i <= m; i++) {
+            int row = i * width;
+            int prevRow = row - width;
+            int id2 = ids2[i - 1];
+            t[row] = 0;
+            for (int j = 1; j <= n; j++) {
+                t[row + j] = ids1[j - 1] == id2
+                        ? t[prevRow + j - 1] + 1
+                        : Math.max(t[prevRow + j], t[row + j - 1]);
+            }
+        }
+
+        Arrays.fill(matches, 0, n, -1);
+        int i = m;
+        int j = n;
+        while (i > 0 && j > 0) {
+            if (ids1[j - 1] == ids2[i - 1]) {
+                matches[j - 1] = i - 1;
+                i--;
+                j--;
+            } else if (t[(i - 1) * width + j] >= t[i * width + j - 1]) {
+                i--;
+            } else {
+                j--;
+            }
+        }
+        return matches;
+    }
+}
@@ -2,6 +2,7 @@ package com.uetty.common.tool.algorithm.diff;
 
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -35,6 +36,41 @@ public class EnglishWordMetadataPicker implements MetadataPicker {
         return metadatas;
     }
 
+    @Override
+    public Metadatas doPick(String str, SymbolTable symbolTable) {
+        // 与doPick(String)的切分规则一致：非单词字符开启一个新数据元，其后的单词字符归入该数据元
+        int[] ids = new int[16];
+        int[] ends = new int[16];
+        int count = 0;
+        int start = 0;
+        for (int i = 0; i < str.length(); i++) {
+            if (i > start && !isMatch(str.charAt(i))) {
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, count * 2);
+                    ends = Arrays.copyOf(ends, count * 2);
+                }
+                ids[count] = symbolTable.intern(str, start, i);
+                ends[count] = i;
+                count++;
+                start = i;
+            }
+        }
+        if (start < str.length()) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count + 1);
+                ends = Arrays.copyOf(ends, count + 1);
+            }
+            ids[count] = symbolTable.intern(str, start, str.length());
+            ends[count] = str.length();
+            count++;
+        }
+
+        Metadatas metadatas = new Metadatas();
+        metadatas.setIds(Arrays.copyOf(ids, count));
+        metadatas.setEnds(Arrays.copyOf(ends, count));
+        return metadatas;
+    }
+
     private boolean isMatch(char c) {
         if (c >= 'a' && c <= 'z') return true;
         if (c >= 'A' && c <= 'Z') return true;
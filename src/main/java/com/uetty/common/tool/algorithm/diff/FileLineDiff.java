@@ -0,0 +1,415 @@
+package com.uetty.common.tool.algorithm.diff;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 按行比较两个文件，输出unified diff格式的结果
+ * <p>文件通过内存映射读取，逐行计算哈希并转换为行id，堆内存只保存每行的起始位置与id，不读入文件内容；
+ * 输出时再从映射区解码需要的行</p>
+ * <p>先去掉共同的首尾行，再以两边都只出现一次的行作为锚点切分窗口，每个窗口算完即输出其中的hunk，
+ * 不必等整个diff结束，也不构建{@link LCSDiff.MetadataSpec}列表</p>
+ * <p>单个文件的大小受内存映射限制，不能超过2GB</p>
+ * @author : Vince
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class FileLineDiff {
+
+    private static final int DEFAULT_CONTEXT_LINES = 3;
+
+    private final Path path1;
+    private final Path path2;
+    private Charset charset = StandardCharsets.UTF_8;
+    private int contextLines = DEFAULT_CONTEXT_LINES;
+    private LCSEngine lcsEngine = new AnchoredLCSEngine();
+
+    public FileLineDiff(Path path1, Path path2) {
+        this.path1 = path1;
+        this.path2 = path2;
+    }
+
+    public FileLineDiff setCharset(Charset charset) {
+        this.charset = charset;
+        return this;
+    }
+
+    /**
+     * @param contextLines 每个hunk前后的上下文行数
+     * @return 链式返回自身
+     */
+    public FileLineDiff setContextLines(int contextLines) {
+        this.contextLines = contextLines;
+        return this;
+    }
+
+    /**
+     * @param lcsEngine 锚点之间的窗口使用的计算引擎
+     * @return 链式返回自身
+     */
+    public FileLineDiff setLcsEngine(LCSEngine lcsEngine) {
+        this.lcsEngine = lcsEngine;
+        return this;
+    }
+
+    /**
+     * 比较两个文件，将unified diff格式的结果写出
+     * @param writer 输出目标，每个hunk确定后立即写出
+     * @return hunk的个数，为0表示两个文件内容相同
+     * @throws IOException 读取文件或写出失败
+     */
+    public int writeUnifiedDiff(Writer writer) throws IOException {
+        MappedLines lines1 = MappedLines.map(path1);
+        MappedLines lines2 = MappedLines.map(path2);
+        LineTable lineTable = new LineTable(lines1, lines2);
+        int[] ids1 = lineTable.toIds(0);
+        int[] ids2 = lineTable.toIds(1);
+
+        HunkWriter hunkWriter = new HunkWriter(writer, lines1, lines2);
+        int lo1 = 0;
+        int lo2 = 0;
+        int hi1 = ids1.length;
+        int hi2 = ids2.length;
+        while (lo1 < hi1 && lo2 < hi2 && ids1[lo1] == ids2[lo2]) {
+            hunkWriter.equal(lo1++, lo2++);
+        }
+        while (lo1 < hi1 && lo2 < hi2 && ids1[hi1 - 1] == ids2[hi2 - 1]) {
+            hi1--;
+            hi2--;
+        }
+        if (lo1 < hi1 || lo2 < hi2) {
+            int[][] anchors = AnchoredLCSEngine.uniqueAnchors(ids1, lo1, hi1, ids2, lo2, hi2);
+            for (int[] anchor : anchors) {
+                diffWindow(ids1, lo1, anchor[0], ids2, lo2, anchor[1], hunkWriter);
+                hunkWriter.equal(anchor[0], anchor[1]);
+                lo1 = anchor[0] + 1;
+                lo2 = anchor[1] + 1;
+            }
+            diffWindow(ids1, lo1, hi1, ids2, lo2, hi2, hunkWriter);
+        }
+        for (int i = hi1, j = hi2; i < ids1.length; i++, j++) {
+            hunkWriter.equal(i, j);
+        }
+        hunkWriter.finish();
+        return hunkWriter.hunkCount;
+    }
+
+    private void diffWindow(int[] ids1, int lo1, int hi1, int[] ids2, int lo2, int hi2,
+                            HunkWriter hunkWriter) throws IOException {
+        int[] matches = lo1 < hi1 && lo2 < hi2
+                ? lcsEngine.match(Arrays.copyOfRange(ids1, lo1, hi1), Arrays.copyOfRange(ids2, lo2, hi2))
+                : new int[0];
+        int j = lo2;
+        for (int i = lo1; i < hi1; i++) {
+            int matched = matches.length > 0 ? matches[i - lo1] : -1;
+            if (matched < 0) {
+                hunkWriter.delete(i);
+                continue;
+            }
+            while (j < lo2 + matched) {
+                hunkWriter.insert(j++);
+            }
+            hunkWriter.equal(i, j++);
+        }
+        while (j < hi2) {
+            hunkWriter.insert(j++);
+        }
+    }
+
+    /**
+     * 内存映射的文件及其行起始位置，行内容包含行尾的换行符
+     */
+    private static class MappedLines {
+        ByteBuffer buffer;
+        /**
+         * 第i行为[starts[i], starts[i + 1])，长度为行数+1
+         */
+        int[] starts;
+        int lineCount;
+
+        static MappedLines map(Path path) throws IOException {
+            MappedLines lines = new MappedLines();
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("file too large to map: " + path);
+                }
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                lines.buffer = mapped;
+            }
+            lines.indexLines();
+            return lines;
+        }
+
+        private void indexLines() {
+            int limit = buffer.limit();
+            starts = new int[1024];
+            lineCount = 0;
+            starts[0] = 0;
+            for (int pos = 0; pos < limit; pos++) {
+                if (buffer.get(pos) == '\n') {
+                    addStart(pos + 1);
+                }
+            }
+            if (starts[lineCount] < limit) {
+                addStart(limit); // 最后一行没有换行符
+            }
+        }
+
+        private void addStart(int start) {
+            if (lineCount + 1 == starts.length) {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+            }
+            starts[++lineCount] = start;
+        }
+
+        boolean endsWithNewline(int line) {
+            int end = starts[line + 1];
+            return end > starts[line] && buffer.get(end - 1) == '\n';
+        }
+    }
+
+    /**
+     * 行符号表，按行内容（含换行符）分配id，哈希冲突时直接比较映射区中的字节
+     */
+    private static class LineTable {
+        private final MappedLines[] files;
+        private int[] slots = new int[1024]; // id + 1，0为空槽
+        private int[] hashes = new int[512];
+        private int[] ownerFiles = new int[512];
+        private int[] ownerLines = new int[512];
+        private int size;
+
+        LineTable(MappedLines lines1, MappedLines lines2) {
+            this.files = new MappedLines[]{lines1, lines2};
+        }
+
+        int[] toIds(int file) {
+            MappedLines lines = files[file];
+            int[] ids = new int[lines.lineCount];
+            for (int line = 0; line < lines.lineCount; line++) {
+                ids[line] = intern(file, line);
+            }
+            return ids;
+        }
+
+        private int intern(int file, int line) {
+            int hash = hash(files[file], line);
+            int mask = slots.length - 1;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (slots[slot] != 0) {
+                int id = slots[slot] - 1;
+                if (hashes[id] == hash && lineEquals(files[ownerFiles[id]], ownerLines[id], files[file], line)) {
+                    return id;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (size == hashes.length) {
+                hashes = Arrays.copyOf(hashes, size * 2);
+                ownerFiles = Arrays.copyOf(ownerFiles, size * 2);
+                ownerLines = Arrays.copyOf(ownerLines, size * 2);
+            }
+            int id = size++;
+            hashes[id] = hash;
+            ownerFiles[id] = file;
+            ownerLines[id] = line;
+            slots[slot] = id + 1;
+            if (size * 2 > slots.length) {
+                rehash();
+            }
+            return id;
+        }
+
+        private void rehash() {
+            slots = new int[slots.length * 2];
+            int mask = slots.length - 1;
+            for (int id = 0; id < size; id++) {
+                int slot = (hashes[id] ^ (hashes[id] >>> 16)) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = id + 1;
+            }
+        }
+
+        private static int hash(MappedLines lines, int line) {
+            // FNV-1a
+            int hash = 0x811C9DC5;
+            for (int pos = lines.starts[line]; pos < lines.starts[line + 1]; pos++) {
+                hash ^= lines.buffer.get(pos) & 0xff;
+                hash *= 0x01000193;
+            }
+            return hash;
+        }
+
+        private static boolean lineEquals(MappedLines lines1, int line1, MappedLines lines2, int line2) {
+            int start1 = lines1.starts[line1];
+            int start2 = lines2.starts[line2];
+            int len = lines1.starts[line1 + 1] - start1;
+            if (len != lines2.starts[line2 + 1] - start2) return false;
+            for (int k = 0; k < len; k++) {
+                if (lines1.buffer.get(start1 + k) != lines2.buffer.get(start2 + k)) return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 按顺序接收相同、删除、新增事件，凑齐一个hunk（其后有超过两倍上下文行数的相同行）即写出
+     */
+    private class HunkWriter {
+        private static final int OP_EQUAL = 0;
+        private static final int OP_DELETE = 1;
+        private static final int OP_INSERT = 2;
+
+        private final Writer writer;
+        private final MappedLines lines1;
+        private final MappedLines lines2;
+        private final ByteBuffer view1;
+        private final ByteBuffer view2;
+        private byte[] lineBytes = new byte[256];
+
+        private boolean headerWritten;
+        private int hunkCount;
+        /**
+         * 两个文件中下一个待处理的行号
+         */
+        private int cursor1;
+        private int cursor2;
+        /**
+         * 当前hunk的操作序列：操作类型、文件1行号、文件2行号三个一组
+         */
+        private int[] ops = new int[192];
+        private int opSize;
+        private boolean inHunk;
+        private int hunkStart1;
+        private int hunkStart2;
+        /**
+         * 最近连续相同行的个数
+         */
+        private int equalRun;
+
+        HunkWriter(Writer writer, MappedLines lines1, MappedLines lines2) {
+            this.writer = writer;
+            this.lines1 = lines1;
+            this.lines2 = lines2;
+            this.view1 = lines1.buffer.duplicate();
+            this.view2 = lines2.buffer.duplicate();
+        }
+
+        void equal(int line1, int line2) throws IOException {
+            cursor1 = line1 + 1;
+            cursor2 = line2 + 1;
+            equalRun++;
+            if (!inHunk) return;
+            addOp(OP_EQUAL, line1, line2);
+            if (equalRun > 2 * contextLines) {
+                // 超出上下文的相同行不属于当前hunk
+                opSize -= 3 * (equalRun - contextLines);
+                flushHunk();
+            }
+        }
+
+        void delete(int line1) {
+            openHunk();
+            addOp(OP_DELETE, line1, -1);
+            cursor1 = line1 + 1;
+        }
+
+        void insert(int line2) {
+            openHunk();
+            addOp(OP_INSERT, -1, line2);
+            cursor2 = line2 + 1;
+        }
+
+        void finish() throws IOException {
+            if (inHunk) {
+                opSize -= 3 * (equalRun - Math.min(equalRun, contextLines));
+                flushHunk();
+            }
+            writer.flush();
+        }
+
+        private void openHunk() {
+            if (!inHunk) {
+                inHunk = true;
+                opSize = 0;
+                // 前置上下文：紧挨着的相同行，两个文件的行号同步递减
+                int leading = Math.min(equalRun, contextLines);
+                hunkStart1 = cursor1 - leading;
+                hunkStart2 = cursor2 - leading;
+                for (int k = leading; k > 0; k--) {
+                    addOp(OP_EQUAL, cursor1 - k, cursor2 - k);
+                }
+            }
+            equalRun = 0;
+        }
+
+        private void addOp(int op, int line1, int line2) {
+            if (opSize + 3 > ops.length) {
+                ops = Arrays.copyOf(ops, ops.length * 2);
+            }
+            ops[opSize++] = op;
+            ops[opSize++] = line1;
+            ops[opSize++] = line2;
+        }
+
+        private void flushHunk() throws IOException {
+            inHunk = false;
+            if (!headerWritten) {
+                writer.write("--- " + path1 + "\n");
+                writer.write("+++ " + path2 + "\n");
+                headerWritten = true;
+            }
+            int count1 = 0;
+            int count2 = 0;
+            for (int k = 0; k < opSize; k += 3) {
+                if (ops[k] != OP_INSERT) count1++;
+                if (ops[k] != OP_DELETE) count2++;
+            }
+            // unified格式行号从1开始，范围为空时记为前一行的行号
+            writer.write("@@ -" + (count1 == 0 ? hunkStart1 : hunkStart1 + 1) + "," + count1
+                    + " +" + (count2 == 0 ? hunkStart2 : hunkStart2 + 1) + "," + count2 + " @@\n");
+            for (int k = 0; k < opSize; k += 3) {
+                switch (ops[k]) {
+                    case OP_EQUAL:
+                        writeLine(' ', lines1, view1, ops[k + 1]);
+                        break;
+                    case OP_DELETE:
+                        writeLine('-', lines1, view1, ops[k + 1]);
+                        break;
+                    default:
+                        writeLine('+', lines2, view2, ops[k + 2]);
+                        break;
+                }
+            }
+            hunkCount++;
+            opSize = 0;
+        }
+
+        private void writeLine(char prefix, MappedLines lines, ByteBuffer view, int line) throws IOException {
+            int start = lines.starts[line];
+            int len = lines.starts[line + 1] - start;
+            boolean newline = lines.endsWithNewline(line);
+            if (newline) len--;
+            if (len > lineBytes.length) {
+                lineBytes = new byte[Math.max(len, lineBytes.length * 2)];
+            }
+            view.position(start);
+            view.get(lineBytes, 0, len);
+            writer.write(prefix);
+            writer.write(new String(lineBytes, 0, len, charset));
+            writer.write('\n');
+            if (!newline) {
+                writer.write("\\ No newline at end of file\n");
+            }
+        }
+    }
+}
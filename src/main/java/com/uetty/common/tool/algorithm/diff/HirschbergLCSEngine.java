@@ -0,0 +1,84 @@
+package com.uetty.common.tool.algorithm.diff;
+
+import java.util.Arrays;
+
+/**
+ * Hirschberg分治法计算最长公共子序列
+ * <p>每次将序列1对半分开，分别正向、反向计算一行LCS长度找到序列2上的最佳切分点，再递归两侧</p>
+ * <p>内存消耗O(N+M)（两行计数数组加匹配结果），CPU消耗约为完整LCS表的2倍，适合编辑距离较大的大文本</p>
+ * @author : Vince
+ */
+public class HirschbergLCSEngine implements LCSEngine {
+
+    @Override
+    public int[] match(int[] seq1, int[] seq2) {
+        int[] matches = new int[seq1.length];
+        Arrays.fill(matches, -1);
+        // 两行计数数组在整个递归过程中复用（递归前已经用完）
+        int[] forward = new int[seq2.length + 1];
+        int[] backward = new int[seq2.length + 1];
+        split(seq1, 0, seq1.length, seq2, 0, seq2.length, matches, forward, backward);
+        return matches;
+    }
+
+    private void split(int[] seq1, int lo1, int hi1, int[] seq2, int lo2, int hi2,
+                       int[] matches, int[] forward, int[] backward) {
+        if (lo1 >= hi1 || lo2 >= hi2) return;
+        if (hi1 - lo1 == 1) {
+            for (int j = lo2; j < hi2; j++) {
+                if (seq1[lo1] == seq2[j]) {
+                    matches[lo1] = j;
+                    break;
+                }
+            }
+            return;
+        }
+
+        int mid = (lo1 + hi1) >>> 1;
+        forwardRow(seq1, lo1, mid, seq2, lo2, hi2, forward);
+        backwardRow(seq1, mid, hi1, seq2, lo2, hi2, backward);
+
+        // forward[k]: seq1[lo1, mid)与seq2[lo2, lo2 + k)的LCS长度
+        // backward[k]: seq1[mid, hi1)与seq2[lo2 + k, hi2)的LCS长度
+        int len2 = hi2 - lo2;
+        int best = 0;
+        int bestSum = -1;
+        for (int k = 0; k <= len2; k++) {
+            int sum = forward[k] + backward[k];
+            if (sum > bestSum) {
+                bestSum = sum;
+                best = k;
+            }
+        }
+        split(seq1, lo1, mid, seq2, lo2, lo2 + best, matches, forward, backward);
+        split(seq1, mid, hi1, seq2, lo2 + best, hi2, matches, forward, backward);
+    }
+
+    private void forwardRow(int[] seq1, int lo1, int hi1, int[] seq2, int lo2, int hi2, int[] row) {
+        int len2 = hi2 - lo2;
+        Arrays.fill(row, 0, len2 + 1, 0);
+        for (int i = lo1; i < hi1; i++) {
+            int a = seq1[i];
+            int diag = 0; // 上一行的row[k - 1]
+            for (int k = 1; k <= len2; k++) {
+                int up = row[k];
+                row[k] = a == seq2[lo2 + k - 1] ? diag + 1 : Math.max(up, row[k - 1]);
+                diag = up;
+            }
+        }
+    }
+
+    private void backwardRow(int[] seq1, int lo1, int hi1, int[] seq2, int lo2, int hi2, int[] row) {
+        int len2 = hi2 - lo2;
+        Arrays.fill(row, 0, len2 + 1, 0);
+        for (int i = hi1 - 1; i >= lo1; i--) {
+            int a = seq1[i];
+            int diag = 0; // 上一行的row[k + 1]
+            for (int k = len2 - 1; k >= 0; k--) {
+                int up = row[k];
+                row[k] = a == seq2[lo2 + k] ? diag + 1 : Math.max(up, row[k + 1]);
+                diag = up;
+            }
+        }
+    }
+}
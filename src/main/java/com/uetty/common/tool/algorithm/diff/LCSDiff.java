@@ -8,6 +8,8 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.stream.Collectors;
 
 /**
@@ -18,11 +20,34 @@ import java.util.stream.Collectors;
 public class LCSDiff {
 
     private static final int CDATA_META_LEN = 3;
+    /**
+     * 并行计算LCS表时分块的边长（数据元个数）
+     */
+    private static final int TILE_SIZE = 512;
     private char[] c1;
     private char[] c2;
     private MetadataSpec[] specs1;
     private MetadataSpec[] specs2;
     private MetadataPicker metadataPicker = new CharactMetadataPicker();
+    /**
+     * 为空时使用完整的LCS表计算
+     */
+    private LCSEngine lcsEngine;
+    /**
+     * 数据元在符号表中的id
+     */
+    private int[] ids1;
+    private int[] ids2;
+    /**
+     * 数据元在文本中的结束位置
+     */
+    private int[] ends1;
+    private int[] ends2;
+
+    /**
+     * 不为空时，LCS表按分块反对角线并行计算
+     */
+    private ForkJoinPool parallelPool;
 
     private byte[][] cdata;
 
@@ -31,31 +56,96 @@ public class LCSDiff {
     }
 
     public LCSDiff(String str1, String str2, MetadataPicker metadataPicker) {
+        this(str1, str2, metadataPicker, null);
+    }
+
+    /**
+     * @param str1 文本1
+     * @param str2 文本2
+     * @param metadataPicker 数据元采拣器，为空时按单个字符采拣
+     * @param lcsEngine 公共子序列计算引擎，为空时使用完整的LCS表计算（内存消耗与两个数据元数组长度的乘积成正比）
+     */
+    public LCSDiff(String str1, String str2, MetadataPicker metadataPicker, LCSEngine lcsEngine) {
         this.c1 = str1.toCharArray();
         this.c2 = str2.toCharArray();
         if (metadataPicker != null) {
             this.metadataPicker = metadataPicker;
         }
-        this.specs1 = toSpecArray(str1);
-        this.specs2 = toSpecArray(str2);
+        this.lcsEngine = lcsEngine;
+        // 两个文本共用一个符号表，相同内容的数据元映射为同一个id，比较时只需比较id
+        SymbolTable symbolTable = new SymbolTable();
+        Metadatas metas1 = this.metadataPicker.doPick(str1, symbolTable);
+        Metadatas metas2 = this.metadataPicker.doPick(str2, symbolTable);
+        this.ids1 = metas1.getIds();
+        this.ids2 = metas2.getIds();
+        this.ends1 = metas1.getEnds();
+        this.ends2 = metas2.getEnds();
+        this.specs1 = toSpecArray(metas1);
+        this.specs2 = toSpecArray(metas2);
+    }
+
+    /**
+     * 使用线程池并行计算LCS表，只对未指定引擎（使用完整LCS表）的情况有效，结果与单线程计算完全相同
+     * @param parallelPool 线程池，为空时单线程计算
+     * @return 链式返回自身
+     */
+    public LCSDiff setParallelPool(ForkJoinPool parallelPool) {
+        this.parallelPool = parallelPool;
+        return this;
     }
 
     public CommonInfo seekCommon() {
+        if (lcsEngine != null) {
+            int[] matches = lcsEngine.match(ids1, ids2);
+            return toCommonInfo(matches, matches.length, ends1, ends2, c1, c2);
+        }
         calculate();
         CommonInfo commonInfo = lookback();
         this.cdata = null;
         return commonInfo;
     }
 
-    private MetadataSpec[] toSpecArray(String str) {
-        Metadatas metas = metadataPicker.doPick(str);
-        String[] data = metas.getData();
-        MetadataSpec[] specs = new MetadataSpec[data.length];
+    /**
+     * 将引擎的匹配结果中连续匹配的数据元聚合，转换为与LCS表回溯结果相同的形式
+     * @param matches 序列1每个数据元在序列2中匹配的下标，未匹配为-1
+     * @param size1 序列1的数据元个数（matches可能是更长的复用数组）
+     * @param ends1 序列1数据元的结束位置
+     * @param ends2 序列2数据元的结束位置
+     * @param c1 文本1的字符
+     * @param c2 文本2的字符
+     * @return 共同数据
+     */
+    static CommonInfo toCommonInfo(int[] matches, int size1, int[] ends1, int[] ends2, char[] c1, char[] c2) {
+        List<MetadataSpec> sameSpecs1 = new ArrayList<>();
+        List<MetadataSpec> sameSpecs2 = new ArrayList<>();
+        int j = 0;
+        while (j < size1) {
+            if (matches[j] < 0) {
+                j++;
+                continue;
+            }
+            int start = j;
+            while (j + 1 < size1 && matches[j + 1] >= 0 && matches[j + 1] == matches[j] + 1) {
+                j++;
+            }
+            sameSpecs1.add(aggregateSpec(ends1, start, j, c1));
+            sameSpecs2.add(aggregateSpec(ends2, matches[start], matches[j], c2));
+            j++;
+        }
+        CommonInfo commonInfo = new CommonInfo();
+        commonInfo.specs1 = sameSpecs1;
+        commonInfo.specs2 = sameSpecs2;
+        return commonInfo;
+    }
+
+    private MetadataSpec[] toSpecArray(Metadatas metas) {
+        int[] ends = metas.getEnds();
+        MetadataSpec[] specs = new MetadataSpec[ends.length];
         int cursor = 0;
-        for (int i = 0; i < data.length; i++) {
+        for (int i = 0; i < ends.length; i++) {
             MetadataSpec spec = new MetadataSpec();
             spec.start = cursor;
-            cursor += data[i].length();
+            cursor = ends[i];
             spec.end = cursor;
             spec.string = null; // 这里用不到
             specs[i] = spec;
@@ -69,11 +159,21 @@ public class LCSDiff {
             cdata[i] = new byte[(specs1.length + 1) * CDATA_META_LEN];
         }
 
-        for (int i = 0; i < specs2.length; i++) {
-            MetadataSpec spec2 = specs2[i];
-            for (int j = 0; j < specs1.length; j++) {
-                MetadataSpec spec1 = specs1[j];
-                boolean equals = metaEquals(spec1, spec2);
+        if (parallelPool == null || (specs2.length <= TILE_SIZE && specs1.length <= TILE_SIZE)) {
+            calculateTile(0, specs2.length, 0, specs1.length);
+        } else {
+            parallelPool.invoke(new WavefrontTask());
+        }
+    }
+
+    /**
+     * 计算LCS表中数据元下标范围为[iStart, iEnd) x [jStart, jEnd)的区块
+     */
+    private void calculateTile(int iStart, int iEnd, int jStart, int jEnd) {
+        for (int i = iStart; i < iEnd; i++) {
+            int id2 = ids2[i];
+            for (int j = jStart; j < jEnd; j++) {
+                boolean equals = ids1[j] == id2;
 
                 int count = equals ? (getCount(i, j) + 1) : (Math.max(getCount(i,j + 1), getCount(i + 1, j)));
                 setCount(i + 1, j + 1, count);
@@ -81,6 +181,38 @@ public class LCSDiff {
         }
     }
 
+    /**
+     * LCS表分块的反对角线并行计算
+     * <p>每个单元格只依赖左、上、左上三个单元格，同一条反对角线上的分块互不依赖，可以并行计算；
+     * 各条反对角线依次推进（波前），每条反对角线的分块全部完成后再计算下一条。
+     * 计算出的表与单线程完全相同，回溯结果也完全相同</p>
+     */
+    @SuppressWarnings("serial")
+    private class WavefrontTask extends RecursiveAction {
+        @Override
+        protected void compute() {
+            int tileRows = (specs2.length + TILE_SIZE - 1) / TILE_SIZE;
+            int tileCols = (specs1.length + TILE_SIZE - 1) / TILE_SIZE;
+            List<RecursiveAction> tiles = new ArrayList<>();
+            for (int d = 0; d < tileRows + tileCols - 1; d++) {
+                tiles.clear();
+                for (int ti = Math.max(0, d - tileCols + 1); ti <= Math.min(d, tileRows - 1); ti++) {
+                    int iStart = ti * TILE_SIZE;
+                    int jStart = (d - ti) * TILE_SIZE;
+                    int iEnd = Math.min(iStart + TILE_SIZE, specs2.length);
+                    int jEnd = Math.min(jStart + TILE_SIZE, specs1.length);
+                    tiles.add(new RecursiveAction() {
+                        @Override
+                        protected void compute() {
+                            calculateTile(iStart, iEnd, jStart, jEnd);
+                        }
+                    });
+                }
+                invokeAll(tiles);
+            }
+        }
+    }
+
     private CommonInfo lookback() {
         List<MetadataSpec> sameSpecs1 = new ArrayList<>();
         List<MetadataSpec> sameSpecs2 = new ArrayList<>();
@@ -143,22 +275,16 @@ public class LCSDiff {
         return spec;
     }
 
-    private int max(int a, int b, int c) {
-        return Math.max(Math.max(a, b), c);
+    private static MetadataSpec aggregateSpec(int[] ends, int first, int last, char[] cs) {
+        MetadataSpec spec = new MetadataSpec();
+        spec.start = first > 0 ? ends[first - 1] : 0;
+        spec.end = ends[last];
+        spec.string = new String(cs, spec.start, spec.end - spec.start);
+        return spec;
     }
 
-    private boolean metaEquals(MetadataSpec spec1, MetadataSpec spec2) {
-        int startSpec1 = spec1.start;
-        int endSpec1 = spec1.end;
-        int startSpec2 = spec2.start;
-        int endSpec2 = spec2.end;
-        if (endSpec1 - startSpec1 != endSpec2 - startSpec2) return false;
-
-        for (int i = 0; i + startSpec1 < endSpec1; i++) {
-            if (c1[i + startSpec1] != c2[i + startSpec2]) return false;
-        }
-
-        return true;
+    private int max(int a, int b, int c) {
+        return Math.max(Math.max(a, b), c);
     }
 
     private int getCount(int i, int j) {
@@ -180,8 +306,7 @@ public class LCSDiff {
     }
 
     @SuppressWarnings("unused")
-    static
-    class MetadataSpec {
+    public static class MetadataSpec {
         int start;
         int end;
         String string;
@@ -216,7 +341,7 @@ public class LCSDiff {
      * @author : Vince
      */
     @SuppressWarnings({"unused", "WeakerAccess"})
-    class CommonInfo {
+    public static class CommonInfo {
         List<MetadataSpec> specs1;
         List<MetadataSpec> specs2;
 
@@ -238,6 +363,8 @@ public class LCSDiff {
     }
 
     public static void main(String[] args) throws IOException {
+        // 大文件按行比较时使用FileLineDiff，文件内存映射读取，结果边计算边以unified diff格式输出
+        // new FileLineDiff(Paths.get("re.txt"), Paths.get("rr.txt")).writeUnifiedDiff(writer);
         String str1 = FileUtils.readFileToString(new File("C:\\Users\\Vince\\Desktop\\re.txt"), StandardCharsets.UTF_8);
         String str2 = FileUtils.readFileToString(new File("C:\\Users\\Vince\\Desktop\\rr.txt"), StandardCharsets.UTF_8);
 
@@ -246,6 +373,14 @@ public class LCSDiff {
         // CharBaseMetadataBuilder模式，以单个字符作为不可分割的数据元来比较，适合文本字符较少、分隔符号较少时使用，适用场景相对较少点
         LCSDiff lcsDiff = new LCSDiff(str1, str2, new EnglishWordMetadataPicker());
 //        LCSDiff lcsDiff = new LCSDiff(str1, str2);
+        // 两个文本为同一文档相近的版本时（编辑距离小），可使用Myers引擎，无须建立完整的LCS表
+//        LCSDiff lcsDiff = new LCSDiff(str1, str2, new EnglishWordMetadataPicker(), new MyersLCSEngine());
+        // 文本很大且差异也较多时，可使用Hirschberg引擎，内存消耗与文本长度呈线性关系
+//        LCSDiff lcsDiff = new LCSDiff(str1, str2, new EnglishWordMetadataPicker(), new HirschbergLCSEngine());
+        // 字符级别比较时，可使用位并行引擎，一个long同时计算64个单元格
+//        LCSDiff lcsDiff = new LCSDiff(str1, str2, new CharactMetadataPicker(), new BitParallelLCSEngine());
+        // 配置、代码类文本首尾相同部分多，可先去除共同前后缀并以唯一数据元切分窗口，再交给其他引擎计算
+//        LCSDiff lcsDiff = new LCSDiff(str1, str2, new EnglishWordMetadataPicker(), new AnchoredLCSEngine(new HirschbergLCSEngine()));
         CommonInfo diff = lcsDiff.seekCommon();
         List<MetadataSpec> sameSpecs1 = diff.getSpecs1();
         List<String> collect = sameSpecs1.stream().map(MetadataSpec::getString).collect(Collectors.toList());
@@ -0,0 +1,18 @@
+package com.uetty.common.tool.algorithm.diff;
+
+/**
+ * 最长公共子序列计算引擎
+ * <p>数据元已被转换为整型id（相同内容的数据元id相同），引擎只需比较id，不关心数据元的具体内容</p>
+ * <p>不同引擎在时间、内存上各有取舍，由{@link LCSDiff}的构造参数选择</p>
+ * @author : Vince
+ */
+public interface LCSEngine {
+
+    /**
+     * 计算两个序列的公共子序列
+     * @param seq1 序列1的数据元id
+     * @param seq2 序列2的数据元id
+     * @return 长度与seq1相同的数组，元素为seq1对应数据元在seq2中匹配的下标，未匹配的为-1，匹配下标严格递增
+     */
+    int[] match(int[] seq1, int[] seq2);
+}
@@ -7,4 +7,27 @@ package com.uetty.common.tool.algorithm.diff;
  */
 public interface MetadataPicker {
     Metadatas doPick(String str);
-}
\ No newline at end of file
+
+    /**
+     * 采拣数据元，并通过符号表直接转换为id，diff时只需比较id
+     * <p>默认实现基于{@link #doPick(String)}的字符串结果，实现类可覆盖以避免为每个数据元创建字符串</p>
+     * @param str 文本
+     * @param symbolTable 符号表，同一次diff的两个文本共用
+     * @return 填充了ids与ends的采拣结果
+     */
+    default Metadatas doPick(String str, SymbolTable symbolTable) {
+        String[] data = doPick(str).getData();
+        int[] ids = new int[data.length];
+        int[] ends = new int[data.length];
+        int cursor = 0;
+        for (int i = 0; i < data.length; i++) {
+            ids[i] = symbolTable.intern(data[i]);
+            cursor += data[i].length();
+            ends[i] = cursor;
+        }
+        Metadatas metas = new Metadatas();
+        metas.setIds(ids);
+        metas.setEnds(ends);
+        return metas;
+    }
+}
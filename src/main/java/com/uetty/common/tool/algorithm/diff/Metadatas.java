@@ -1,10 +1,20 @@
 package com.uetty.common.tool.algorithm.diff;
 
 /**
+ * 采拣结果
+ * <p>按字符串采拣时填充data；按符号表采拣时填充ids与ends，不创建数据元字符串</p>
  * @author : Vince
  */
 public class Metadatas {
     private String[] data;
+    /**
+     * 数据元在符号表中的id
+     */
+    private int[] ids;
+    /**
+     * 数据元在原文本中的结束位置（不包含），数据元首尾相接，第i个数据元的开始位置即第i-1个的结束位置
+     */
+    private int[] ends;
 
     public String[] getData() {
         return data;
@@ -13,4 +23,24 @@ public class Metadatas {
     public void setData(String[] data) {
         this.data = data;
     }
+
+    public int[] getIds() {
+        return ids;
+    }
+
+    public void setIds(int[] ids) {
+        this.ids = ids;
+    }
+
+    public int[] getEnds() {
+        return ends;
+    }
+
+    public void setEnds(int[] ends) {
+        this.ends = ends;
+    }
+
+    public int size() {
+        return ids != null ? ids.length : data.length;
+    }
 }
@@ -0,0 +1,89 @@
+package com.uetty.common.tool.algorithm.diff;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Myers差分算法，时间复杂度O((N+M)·D)，D为编辑距离
+ * <p>编辑距离很小时（比较同一文档相近的两个版本）速度远快于完整的LCS表，大文本也不会因建表而内存溢出</p>
+ * <p>回溯需要保存每一步的前沿数组，内存消耗O(D²)，编辑距离很大的文本不适合使用</p>
+ * @author : Vince
+ */
+public class MyersLCSEngine implements LCSEngine {
+
+    @Override
+    public int[] match(int[] seq1, int[] seq2) {
+        int n = seq1.length;
+        int m = seq2.length;
+        int[] matches = new int[n];
+        Arrays.fill(matches, -1);
+        if (n == 0 || m == 0) return matches;
+
+        int max = n + m;
+        int offset = max;
+        // v[offset + k]：对角线k（k = x - y）上走得最远的x
+        int[] v = new int[2 * max + 2];
+        List<int[]> trace = new ArrayList<>();
+        int d = 0;
+        boolean reached = false;
+        for (; d <= max; d++) {
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) {
+                    x = v[offset + k + 1]; // 从上方下移（seq2多出的数据元）
+                } else {
+                    x = v[offset + k - 1] + 1; // 从左边右移（seq1多出的数据元）
+                }
+                int y = x - k;
+                while (x < n && y < m && seq1[x] == seq2[y]) { // 沿对角线滑行（snake）
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    reached = true;
+                    break;
+                }
+            }
+            if (reached) break;
+            // 只保存本轮涉及的对角线范围[-d, d]
+            trace.add(Arrays.copyOfRange(v, offset - d, offset + d + 1));
+        }
+
+        backtrack(matches, trace, d, n, m);
+        return matches;
+    }
+
+    private void backtrack(int[] matches, List<int[]> trace, int dist, int n, int m) {
+        int x = n;
+        int y = m;
+        for (int d = dist; d > 0; d--) {
+            int[] prev = trace.get(d - 1); // 下标i对应对角线 i - (d - 1)
+            int base = d - 1;
+            int k = x - y;
+            int prevK;
+            if (k == -d || (k != d && prev[base + k - 1] < prev[base + k + 1])) {
+                prevK = k + 1;
+            } else {
+                prevK = k - 1;
+            }
+            int prevX = prev[base + prevK];
+            int prevY = prevX - prevK;
+            // prevK方向上走一步后，剩下的都是对角线上的匹配
+            int snakeStartX = prevK == k + 1 ? prevX : prevX + 1;
+            while (x > snakeStartX) {
+                x--;
+                y--;
+                matches[x] = y;
+            }
+            x = prevX;
+            y = prevY;
+        }
+        while (x > 0 && y > 0) {
+            x--;
+            y--;
+            matches[x] = y;
+        }
+    }
+}
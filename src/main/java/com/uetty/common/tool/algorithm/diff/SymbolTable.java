@@ -0,0 +1,121 @@
+package com.uetty.common.tool.algorithm.diff;
+
+import java.util.Arrays;
+
+/**
+ * 数据元符号表，将内容相同的数据元映射为同一个整型id（从0开始连续分配）
+ * <p>直接对字符区间做哈希与比较，数据元内容拷贝进内部共享的字符池，不为每个数据元创建String对象</p>
+ * <p>同一次diff的两个文本必须共用一个符号表，id才可以互相比较。非线程安全</p>
+ * @author : Vince
+ */
+public class SymbolTable {
+
+    private static final int INIT_CAPACITY = 64;
+
+    private char[] pool = new char[INIT_CAPACITY * 4];
+    private int poolSize;
+    private int[] starts = new int[INIT_CAPACITY];
+    private int[] lengths = new int[INIT_CAPACITY];
+    private int[] hashes = new int[INIT_CAPACITY];
+    private int size;
+    /**
+     * 开放寻址的哈希槽，存放id + 1，0表示空槽
+     */
+    private int[] slots = new int[INIT_CAPACITY * 2];
+
+    public int size() {
+        return size;
+    }
+
+    public int intern(String str) {
+        return intern(str, 0, str.length());
+    }
+
+    /**
+     * 字符区间[start, end)对应的id，不存在则新分配
+     */
+    public int intern(CharSequence cs, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + cs.charAt(i);
+        }
+        int len = end - start;
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && lengths[id] == len && rangeEquals(id, cs, start)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int id = add(cs, start, len, hash);
+        slots[slot] = id + 1;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * id对应的数据元内容
+     */
+    public String symbol(int id) {
+        return new String(pool, starts[id], lengths[id]);
+    }
+
+    /**
+     * 清空符号表，保留已分配的数组以便复用
+     */
+    public void clear() {
+        Arrays.fill(slots, 0);
+        size = 0;
+        poolSize = 0;
+    }
+
+    private boolean rangeEquals(int id, CharSequence cs, int start) {
+        int offset = starts[id];
+        for (int i = 0; i < lengths[id]; i++) {
+            if (pool[offset + i] != cs.charAt(start + i)) return false;
+        }
+        return true;
+    }
+
+    private int add(CharSequence cs, int start, int len, int hash) {
+        if (size == starts.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+        }
+        if (poolSize + len > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + len));
+        }
+        for (int i = 0; i < len; i++) {
+            pool[poolSize + i] = cs.charAt(start + i);
+        }
+        int id = size++;
+        starts[id] = poolSize;
+        lengths[id] = len;
+        hashes[id] = hash;
+        poolSize += len;
+        return id;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,235 @@
+package com.uetty.common.tool.algorithm.diff;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 三路合并（diff3）
+ * <p>以共同的祖先版本base为基准，分别与ours、theirs求公共子序列（两次diff并行执行），
+ * 三方都匹配上的数据元为稳定点，稳定点之间的区块：只有一方修改时取修改方，两方修改相同时取其一，否则为冲突</p>
+ * <p>数据元的切分方式由{@link MetadataPicker}决定，合并结果中的冲突使用git风格的标记包围</p>
+ * @author : Vince
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class ThreeWayMerge {
+
+    private static final String MARKER_OURS = "<<<<<<< ours\n";
+    private static final String MARKER_SEPARATOR = "=======\n";
+    private static final String MARKER_THEIRS = ">>>>>>> theirs\n";
+
+    private MetadataPicker metadataPicker = new EnglishWordMetadataPicker();
+    private LCSEngine lcsEngine = new AnchoredLCSEngine(new MyersLCSEngine());
+    private Executor executor = ForkJoinPool.commonPool();
+
+    public ThreeWayMerge() {
+    }
+
+    /**
+     * @param metadataPicker 数据元采拣器，为空时按英文单词采拣
+     * @param lcsEngine 公共子序列计算引擎，为空时使用Myers引擎（带首尾、锚点预处理），需要是无状态（线程安全）的实现
+     * @param executor 执行base与theirs之间diff的线程池，为空时使用公共的ForkJoinPool
+     */
+    public ThreeWayMerge(MetadataPicker metadataPicker, LCSEngine lcsEngine, Executor executor) {
+        if (metadataPicker != null) {
+            this.metadataPicker = metadataPicker;
+        }
+        if (lcsEngine != null) {
+            this.lcsEngine = lcsEngine;
+        }
+        if (executor != null) {
+            this.executor = executor;
+        }
+    }
+
+    public MergeResult merge(String base, String ours, String theirs) {
+        SymbolTable symbolTable = new SymbolTable();
+        Metadatas baseMetas = metadataPicker.doPick(base, symbolTable);
+        Metadatas oursMetas = metadataPicker.doPick(ours, symbolTable);
+        Metadatas theirsMetas = metadataPicker.doPick(theirs, symbolTable);
+        int[] baseIds = baseMetas.getIds();
+        int[] oursIds = oursMetas.getIds();
+        int[] theirsIds = theirsMetas.getIds();
+
+        // 两次diff互不依赖，一次交给线程池，一次在当前线程执行
+        CompletableFuture<int[]> theirsFuture = CompletableFuture.supplyAsync(
+                () -> lcsEngine.match(baseIds, theirsIds), executor);
+        int[] oursMatches = lcsEngine.match(baseIds, oursIds);
+        int[] theirsMatches;
+        try {
+            theirsMatches = theirsFuture.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+
+        Merger merger = new Merger(new Side(base, baseMetas), new Side(ours, oursMetas), new Side(theirs, theirsMetas));
+        int b = 0;
+        int o = 0;
+        int t = 0;
+        for (int next = 0; next < baseIds.length; next++) {
+            if (oursMatches[next] < 0 || theirsMatches[next] < 0) continue;
+            // next为三方都匹配的稳定点，之前的部分为不稳定区块
+            merger.chunk(b, next, o, oursMatches[next], t, theirsMatches[next]);
+            merger.stable(next);
+            b = next + 1;
+            o = oursMatches[next] + 1;
+            t = theirsMatches[next] + 1;
+        }
+        merger.chunk(b, baseIds.length, o, oursIds.length, t, theirsIds.length);
+        return merger.result();
+    }
+
+    /**
+     * 合并中的一个版本
+     */
+    private static class Side {
+        final String text;
+        final int[] ids;
+        final int[] ends;
+
+        Side(String text, Metadatas metas) {
+            this.text = text;
+            this.ids = metas.getIds();
+            this.ends = metas.getEnds();
+        }
+
+        int offset(int index) {
+            return index > 0 ? ends[index - 1] : 0;
+        }
+
+        String range(int from, int to) {
+            return text.substring(offset(from), offset(to));
+        }
+
+        boolean rangeEquals(int from, int to, Side other, int otherFrom, int otherTo) {
+            if (to - from != otherTo - otherFrom) return false;
+            for (int i = 0; i < to - from; i++) {
+                if (ids[from + i] != other.ids[otherFrom + i]) return false;
+            }
+            return true;
+        }
+    }
+
+    private static class Merger {
+        final Side base;
+        final Side ours;
+        final Side theirs;
+        final StringBuilder merged = new StringBuilder();
+        final List<Conflict> conflicts = new ArrayList<>();
+
+        Merger(Side base, Side ours, Side theirs) {
+            this.base = base;
+            this.ours = ours;
+            this.theirs = theirs;
+        }
+
+        void stable(int baseIndex) {
+            merged.append(base.range(baseIndex, baseIndex + 1));
+        }
+
+        void chunk(int b1, int b2, int o1, int o2, int t1, int t2) {
+            if (b1 == b2 && o1 == o2 && t1 == t2) return;
+            boolean oursChanged = !base.rangeEquals(b1, b2, ours, o1, o2);
+            boolean theirsChanged = !base.rangeEquals(b1, b2, theirs, t1, t2);
+            if (!theirsChanged) {
+                merged.append(ours.range(o1, o2));
+            } else if (!oursChanged || ours.rangeEquals(o1, o2, theirs, t1, t2)) {
+                merged.append(theirs.range(t1, t2));
+            } else {
+                Conflict conflict = new Conflict();
+                conflict.baseText = base.range(b1, b2);
+                conflict.oursText = ours.range(o1, o2);
+                conflict.theirsText = theirs.range(t1, t2);
+                conflict.start = merged.length();
+                appendMarked(MARKER_OURS, conflict.oursText);
+                appendMarked(MARKER_SEPARATOR, conflict.theirsText);
+                merged.append(MARKER_THEIRS);
+                conflict.end = merged.length();
+                conflicts.add(conflict);
+            }
+        }
+
+        private void appendMarked(String marker, String text) {
+            if (merged.length() > 0 && merged.charAt(merged.length() - 1) != '\n') {
+                merged.append('\n');
+            }
+            merged.append(marker).append(text);
+            if (!text.isEmpty() && !text.endsWith("\n")) {
+                merged.append('\n');
+            }
+        }
+
+        MergeResult result() {
+            MergeResult result = new MergeResult();
+            result.text = merged.toString();
+            result.conflicts = conflicts;
+            return result;
+        }
+    }
+
+    /**
+     * 合并结果
+     */
+    public static class MergeResult {
+        String text;
+        List<Conflict> conflicts;
+
+        /**
+         * @return 合并后的文本，冲突部分以git风格的标记包围
+         */
+        public String getText() {
+            return text;
+        }
+
+        public List<Conflict> getConflicts() {
+            return conflicts;
+        }
+
+        public boolean hasConflict() {
+            return !conflicts.isEmpty();
+        }
+    }
+
+    /**
+     * 冲突区块
+     */
+    public static class Conflict {
+        String baseText;
+        String oursText;
+        String theirsText;
+        int start;
+        int end;
+
+        public String getBaseText() {
+            return baseText;
+        }
+
+        public String getOursText() {
+            return oursText;
+        }
+
+        public String getTheirsText() {
+            return theirsText;
+        }
+
+        /**
+         * @return 冲突（含标记）在合并文本中的开始位置
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * @return 冲突（含标记）在合并文本中的结束位置（不包含）
+         */
+        public int getEnd() {
+            return end;
+        }
+    }
+}
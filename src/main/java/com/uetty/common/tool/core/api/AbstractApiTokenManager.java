@@ -1,22 +1,64 @@
 package com.uetty.common.tool.core.api;
 
+import com.uetty.common.tool.core.api.metrics.JmxTokenPoolMetrics;
+import com.uetty.common.tool.core.api.metrics.TokenPoolMetrics;
+import com.uetty.common.tool.core.security.DigestUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Queue;
-import java.util.UUID;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 各种api的token冷却时间管理的抽象
  * <p>将token泛型化以适应不同类型的token，同时将与泛型有关的抽象到子类实现
+ * <p>token按下次可用时间排序存放在跳表（ConcurrentSkipListSet）中，租借时只查看最早可用的token，
+ * token的租借状态通过CAS切换，租借、归还都不需要全局锁。
+ * 冷却时间按不同的请求类型分别计算时（见{@link #lanes()}），每种请求类型各有一个按该类型冷却时间排序的跳表
+ * <p>没有可用token时，等待的线程按先来后到排队，只有队首的线程挂起到最早的token冷却结束，token归还时立即唤醒队首</p>
+ * <p>异步租借（{@link #rentAsync(Duration)}）与阻塞的线程在同一个队列中排队，由一个调度线程统一完成，不占用调用方的线程</p>
+ * <p>租借、归还、强制收回、刷新会回调{@link TokenPoolMetrics}，未设置时在第一次刷新token列表时注册默认的JMX MBean，
+ * 可通过{@link #setMetrics(TokenPoolMetrics)}替换；不再使用时调用{@link #close()}注销MBean、关闭调度线程</p>
+ * <p>各token在各请求类型下的冷却状态可以保存到本地文件（{@link #enableSnapshots(Path, Duration)}），重启后恢复，
+ * 避免重启后所有token都被当作刚冷却完毕而立即触发限流</p>
  */
 @SuppressWarnings("unused")
-public abstract class AbstractApiTokenManager<T> {
+public abstract class AbstractApiTokenManager<T> implements AutoCloseable {
     private static final Logger LOG = LoggerFactory.getLogger(AbstractApiTokenManager.class);
 
     /**
@@ -24,16 +66,54 @@ public abstract class AbstractApiTokenManager<T> {
      */
     private static final long MAX_RENT_TIMESTAMP = 120_000L;
     /**
-     * 存储的TOKEN的queue，多服务器部署情景下，将queue和lock
+     * 快照文件的标识和格式版本
      */
-    private volatile Queue<TokenNode> tokenQueue = new ConcurrentLinkedQueue<>();
+    private static final int SNAPSHOT_MAGIC = 0x544B5053;
+    private static final int SNAPSHOT_VERSION = 1;
     /**
-     * 已租借出去的token
+     * 只有一种请求类型时使用的排序通道
      */
-    private volatile Queue<TokenNode> rentedQueue = new ConcurrentLinkedQueue<>();
+    private static final Object DEFAULT_LANE = "default";
 
-    protected static final ReentrantLock lock = new ReentrantLock();
-    private int tokenSize;
+    /**
+     * 所有token节点（写时复制，只在刷新时替换）
+     */
+    private volatile List<TokenNode> tokenNodes = Collections.emptyList();
+    /**
+     * 各请求类型对应的排序通道，第一次使用时初始化
+     */
+    private volatile Map<Object, Lane> lanes;
+    /**
+     * 通道中相同可用时间的节点按加入顺序排列
+     */
+    private final AtomicLong sequence = new AtomicLong();
+    /**
+     * 只在刷新token列表时使用，租借、归还不需要
+     */
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    /**
+     * 完成异步租借的调度线程，第一次异步租借时创建
+     */
+    private volatile ScheduledThreadPoolExecutor scheduler;
+    private volatile TokenPoolMetrics metrics = TokenPoolMetrics.NONE;
+    /**
+     * 是否已设置过统计实现，没有设置时第一次刷新token列表时使用默认的JMX实现
+     */
+    private volatile boolean metricsConfigured;
+    /**
+     * token节点的编号，用于统计中区分token（不暴露token本身）
+     */
+    private final AtomicInteger nodeIds = new AtomicInteger();
+    /**
+     * 从快照读取、还没有对应token节点的状态，token加入时恢复
+     */
+    private final Map<String, Map<String, LaneState>> pendingSnapshot = new ConcurrentHashMap<>();
+    private volatile Path snapshotFile;
+    /**
+     * 定期写入快照的线程，与异步租借的调度线程分开，关闭调度线程不影响快照
+     */
+    private ScheduledThreadPoolExecutor snapshotTimer;
+    private Thread snapshotShutdownHook;
 
     /**
      * 重置token的下次冷却时间
@@ -53,128 +133,773 @@ public abstract class AbstractApiTokenManager<T> {
      */
     protected abstract boolean tokenEquals(T token1, T token2);
 
+    /**
+     * 统计中使用的token名称，不应包含token本身
+     */
+    protected String tokenName(TokenNode node) {
+        return "token-" + node.id;
+    }
+
+    /**
+     * 替换统计实现，原有的实现会被关闭（JMX实现会注销MBean）
+     * @param metrics 统计实现，为空时不统计
+     */
+    public synchronized void setMetrics(TokenPoolMetrics metrics) {
+        if (metrics == null) metrics = TokenPoolMetrics.NONE;
+        metricsConfigured = true;
+        TokenPoolMetrics old = this.metrics;
+        this.metrics = metrics;
+        old.close();
+        metrics.bind(this);
+    }
+
+    private synchronized void initDefaultMetrics() {
+        if (!metricsConfigured) {
+            setMetrics(new JmxTokenPoolMetrics());
+        }
+    }
+
+    /**
+     * 关闭token池：停止定期快照（写入最后一次）、关闭调度线程、注销统计（JMX MBean）
+     */
+    @Override
+    public void close() {
+        disableSnapshots();
+        shutdownScheduler();
+        setMetrics(null);
+    }
+
+    public TokenPoolMetrics getMetrics() {
+        return metrics;
+    }
+
     protected TokenNode newTokenNode(T token) {
         return new TokenNode(token);
     }
 
-    protected TokenRenter newTokenRenter(TokenNode node) {
-        return new TokenRenter(node);
+    /**
+     * @param node 借出的token节点
+     * @param rentStamp 借出时CAS得到的租借印记，归还时据此判断是否已被强制收回
+     */
+    protected TokenRenter newTokenRenter(TokenNode node, long rentStamp) {
+        return new TokenRenter(node, rentStamp);
+    }
+
+    /**
+     * 冷却时间分别计算的所有请求类型，默认只有一种
+     * @return 请求类型的集合
+     */
+    protected Collection<?> lanes() {
+        return Collections.singletonList(DEFAULT_LANE);
+    }
+
+    /**
+     * 当前线程的请求类型，必须是{@link #lanes()}中的一个
+     */
+    protected Object currentLane() {
+        return DEFAULT_LANE;
+    }
+
+    /**
+     * 切换当前线程的请求类型，切换后TokenNode的冷却时间、租借时间的读写都针对该类型
+     * @param lane 请求类型，为空表示清除
+     */
+    protected void switchLane(Object lane) {
+    }
+
+    private Map<Object, Lane> lanesMap() {
+        Map<Object, Lane> map = lanes;
+        if (map == null) {
+            refreshLock.lock();
+            try {
+                map = lanes;
+                if (map == null) {
+                    map = new LinkedHashMap<>();
+                    for (Object lane : lanes()) {
+                        map.put(lane, new Lane(lane));
+                    }
+                    lanes = map = Collections.unmodifiableMap(map);
+                }
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+        return map;
     }
 
-    private void requeueIfEquals(Queue<TokenNode> oldQueue, Queue<TokenNode> newQueue, List<T> tokenList) {
-        TokenNode node;
-        while ((node = oldQueue.poll()) != null) {
-            for (int i = 0; i < tokenList.size(); i++) {
-                T token = tokenList.get(i);
-                if (tokenEquals(node.getToken(), token)) {
-                    newQueue.offer(node);
-                    tokenList.remove(i);
-                    break;
+    private Lane lane() {
+        Object key = currentLane();
+        Lane lane = lanesMap().get(key);
+        if (lane == null) {
+            throw new IllegalStateException("unknown lane: " + key);
+        }
+        return lane;
+    }
+
+    private ScheduledThreadPoolExecutor scheduler() {
+        ScheduledThreadPoolExecutor executor = scheduler;
+        if (executor == null) {
+            synchronized (this) {
+                executor = scheduler;
+                if (executor == null) {
+                    executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                        Thread thread = new Thread(runnable, "api-token-scheduler");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    executor.setRemoveOnCancelPolicy(true);
+                    scheduler = executor;
                 }
             }
         }
+        return executor;
+    }
+
+    /**
+     * 关闭异步租借的调度线程，未完成的异步租借以null完成
+     */
+    public void shutdownScheduler() {
+        ScheduledThreadPoolExecutor executor;
+        synchronized (this) {
+            executor = scheduler;
+            scheduler = null;
+        }
+        if (executor == null) return;
+        executor.shutdownNow();
+        for (Lane lane : lanesMap().values()) {
+            for (Waiter waiter : lane.waiters) {
+                if (waiter.future != null) {
+                    waiter.future.complete(null);
+                }
+            }
+        }
+    }
+
+    /**
+     * 唤醒各通道排在队首的等待线程
+     */
+    private void signalWaiters() {
+        for (Lane lane : lanesMap().values()) {
+            lane.signalHead();
+        }
     }
 
     /*
      * 刷新TOKEN列表
      */
     public void refreshTokenList() {
+        if (!metricsConfigured) {
+            // 子类构造完成后才注册，避免未初始化的实例暴露到JMX
+            initDefaultMetrics();
+        }
+        long start = System.nanoTime();
+        refreshLock.lock();
         try {
-            lock.lock();
-
-            List<T> tokenList = getNewestTokenList();
-            Queue<TokenNode> oldTokenQueue = tokenQueue;
-            Queue<TokenNode> oldRentedQueue = rentedQueue;
-            tokenQueue = new ConcurrentLinkedQueue<>();
-            rentedQueue = new ConcurrentLinkedQueue<>();
-            // 旧的TOKEN继续回流到TOKEN队列中
-            requeueIfEquals(oldTokenQueue, tokenQueue, tokenList);
-            requeueIfEquals(oldRentedQueue, rentedQueue, tokenList);
-
+            List<T> tokenList = new ArrayList<>(getNewestTokenList());
+            List<TokenNode> oldNodes = tokenNodes;
+            List<TokenNode> newNodes = new ArrayList<>();
+            // 旧的TOKEN保留原有的状态
+            for (TokenNode node : oldNodes) {
+                boolean kept = false;
+                for (int i = 0; i < tokenList.size(); i++) {
+                    if (tokenEquals(node.getToken(), tokenList.get(i))) {
+                        newNodes.add(node);
+                        tokenList.remove(i);
+                        kept = true;
+                        break;
+                    }
+                }
+                if (!kept) {
+                    retire(node);
+                }
+            }
             // 新的TOKEN
             for (T token : tokenList) {
-                TokenNode tokenNode = newTokenNode(token);
-                tokenQueue.offer(tokenNode);
+                TokenNode node = newTokenNode(token);
+                newNodes.add(node);
+                synchronized (node) {
+                    restoreNode(node, pendingSnapshot.remove(snapshotKey(token)));
+                    rekey(node);
+                }
             }
-            tokenSize = tokenQueue.size() + rentedQueue.size();
+            tokenNodes = Collections.unmodifiableList(newNodes);
+            metrics.recordRefresh(System.nanoTime() - start, newNodes.size());
+            signalWaiters();
 
             if (getTokenSize() == 0) {
                 LOG.warn("Token size is 0....");
             }
         } finally {
-            lock.unlock();
+            refreshLock.unlock();
         }
     }
 
     /**
-     * queue中的下一个token是否可租借，如果可用则返回，不可用则返回空
-     * @return 返回包含租借成功的token的包装类实例
+     * 从所有通道中移除已经不在token列表中的节点，之后的归还也不再放回
      */
-    private TokenRenter rentNextTokenIfAvailable() {
-        try {
-            lock.lock();
-            TokenNode node = tokenQueue.poll();
-            if (node == null) return null;
-
-            // 判断是否可租借
-            boolean available = false;
-            // 判断是否可租借
-            if (node.getLastRentTimestamp() + MAX_RENT_TIMESTAMP < System.currentTimeMillis() // 判断租期超时，防止token长时间未归还的情况（出于代码健壮性考虑）
-                    || (node.status == TokenNode.STATUS_IDLE
-                    && node.getNextColdDownTimestamp() < System.currentTimeMillis())) {
-                available = true;
-            }
-            if (available) {
-                node.status = TokenNode.STATUS_RENTED; // 标记token状态为租借出去
-                node.setLastRentTimestamp(System.currentTimeMillis()); // 更新租借时间
-                node.rentSign = UUID.randomUUID().toString(); //
-                rentedQueue.offer(node);
-            } else {
-                tokenQueue.offer(node); // 回归到队列中
+    private void retire(TokenNode node) {
+        synchronized (node) {
+            node.retired = true;
+            Map<Object, Lane> map = lanesMap();
+            for (Map.Entry<Object, LaneEntry> entry : node.laneEntries.entrySet()) {
+                map.get(entry.getKey()).entries.remove(entry.getValue());
             }
+            node.laneEntries.clear();
+        }
+    }
 
-            return available ? newTokenRenter(node) : null;
+    /**
+     * 按节点当前的状态重新计算在各通道中的可用时间，需持有节点的锁
+     * <p>空闲：冷却结束时可用（冷却可以超过租期上限，如等待额度重置）；借出：租期上限到期时可强制收回</p>
+     */
+    private void rekey(TokenNode node) {
+        if (node.retired) return;
+        Object savedLane = currentLane();
+        try {
+            for (Map.Entry<Object, Lane> lane : lanesMap().entrySet()) {
+                switchLane(lane.getKey());
+                Lease lease = node.lease.get();
+                long availableTimestamp = lease.isRented()
+                        ? lease.timestamp + MAX_RENT_TIMESTAMP
+                        : node.getNextColdDownTimestamp();
+                LaneEntry old = node.laneEntries.get(lane.getKey());
+                if (old != null && old.availableTimestamp == availableTimestamp) continue;
+                LaneEntry entry = new LaneEntry(node, availableTimestamp, sequence.incrementAndGet());
+                lane.getValue().entries.add(entry);
+                if (old != null) {
+                    lane.getValue().entries.remove(old);
+                }
+                node.laneEntries.put(lane.getKey(), entry);
+            }
         } finally {
-            lock.unlock();
+            switchLane(savedLane);
         }
     }
 
     /**
-     * 多次循环rentNextTokenIfAvailable，把队列中的所有token都遍历一遍
+     * 当前请求类型下最早可用的token是否可租借，如果可用则返回，不可用则返回空
      * @return 返回包含租借成功的token的包装类实例
      */
-    private TokenRenter loopGetToken() {
-        int size = tokenQueue.size();
-        for (int  i = 0; i < size; i++) {
-            TokenRenter renter = rentNextTokenIfAvailable();
-            if (renter != null) {
-                return renter;
+    private TokenRenter rentNextTokenIfAvailable(Lane lane) {
+        long now = System.currentTimeMillis();
+        for (LaneEntry entry : lane.entries) {
+            if (entry.availableTimestamp > now) {
+                // 按可用时间排序，之后的都不可用
+                return null;
+            }
+            TokenNode node = entry.node;
+            Lease lease = node.lease.get();
+            boolean idle = !lease.isRented();
+            // 借出时间与借出状态一起发布，刚被借出的token不会被误判为超期
+            if (node.retired || (!idle && lease.timestamp + MAX_RENT_TIMESTAMP >= now)) {
+                continue;
+            }
+            // 空闲的直接借出；借出已超过租期上限的强制收回后重新借出，旧的租借者归还时会因印记不符而失效
+            long rentStamp = idle ? lease.stamp + 1 : lease.stamp + 2;
+            if (!node.lease.compareAndSet(lease, new Lease(rentStamp, now))) {
+                // 已被其他线程借走
+                continue;
+            }
+            if (!idle) {
+                metrics.recordForcedReclaim(String.valueOf(lane.key), tokenName(node), now - lease.timestamp);
             }
+            synchronized (node) {
+                node.status = TokenNode.STATUS_RENTED; // 标记token状态为租借出去
+                node.setLastRentTimestamp(now); // 更新租借时间
+                rekey(node);
+            }
+            return newTokenRenter(node, rentStamp);
         }
         return null;
     }
 
     /**
      * 尝试获取可用的Token，如果在限制时间内不能获取token，则返回null
+     * <p>等待中的线程按先来后到获取token，线程被中断时放弃等待并返回null（保留中断状态）</p>
      * @param delay 等待时间，超出等待时间，则获取失败
      * @return 返回包含租借成功的token的包装类实例
      */
     public TokenRenter tryGetAvailableToken(long delay) {
-        long time = System.currentTimeMillis();
-        do {
-            TokenRenter tokenRenter = loopGetToken();
-            if (tokenRenter != null) return tokenRenter;
+        Lane lane = lane();
+        long start = System.nanoTime();
+        long deadline = deadlineAfter(delay);
+        TokenRenter tokenRenter = null;
+        if (lane.waiters.isEmpty()) {
+            // 没有排队的线程时直接尝试
+            tokenRenter = rentNextTokenIfAvailable(lane);
+        }
+        boolean waited = tokenRenter == null && delay > 0;
+        if (waited) {
+            tokenRenter = await(lane, deadline);
+        }
+        metrics.recordRent(String.valueOf(lane.key), System.nanoTime() - start, waited, tokenRenter != null);
+        return tokenRenter;
+    }
 
-            LockSupport.parkNanos(40_000_000L);
-        } while (time + delay < System.currentTimeMillis());
-        return null;
+    /**
+     * @return 从现在起等待delay毫秒的截止时间，超出long范围时为Long.MAX_VALUE（一直等待）
+     */
+    private static long deadlineAfter(long delay) {
+        long now = System.currentTimeMillis();
+        return delay >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now + Math.max(delay, 0L);
+    }
+
+    /**
+     * @return 等待的毫秒数，负数为0，超出long范围时为Long.MAX_VALUE
+     */
+    private static long toMillis(Duration timeout) {
+        if (timeout.isNegative()) return 0L;
+        try {
+            return timeout.toMillis();
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * 排队等待，直到租借成功或超过截止时间
+     */
+    private TokenRenter await(Lane lane, long deadline) {
+        Thread current = Thread.currentThread();
+        Waiter waiter = new Waiter(current, null, deadline);
+        lane.waiters.offer(waiter);
+        try {
+            while (true) {
+                long wakeTimestamp = deadline;
+                if (lane.waiters.peek() == waiter) {
+                    TokenRenter tokenRenter = rentNextTokenIfAvailable(lane);
+                    if (tokenRenter != null) return tokenRenter;
+                    // 挂起到最早的token可用，期间有token归还会被提前唤醒
+                    wakeTimestamp = Math.min(deadline, lane.earliestAvailableTimestamp());
+                }
+                long now = System.currentTimeMillis();
+                if (now >= deadline || current.isInterrupted()) return null;
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(Math.max(wakeTimestamp - now, 1L)));
+            }
+        } finally {
+            lane.waiters.remove(waiter);
+            // 让下一个等待的线程接着尝试
+            lane.signalHead();
+        }
+    }
+
+    /**
+     * 异步租借token，在限制时间内不能获取token时以null完成
+     * <p>没有排队时在调用线程直接尝试，否则由调度线程按先来后到完成，依赖的回调默认也在调度线程执行，
+     * 不应在回调中阻塞（可使用thenApplyAsync等指定其他线程）；取消返回的future即放弃排队</p>
+     * @param timeout 等待时间
+     * @return 完成时包含租借成功的token的包装类实例
+     */
+    public CompletableFuture<TokenRenter> rentAsync(Duration timeout) {
+        Lane lane = lane();
+        long start = System.nanoTime();
+        long delay = toMillis(timeout);
+        if (lane.waiters.isEmpty()) {
+            TokenRenter tokenRenter = rentNextTokenIfAvailable(lane);
+            if (tokenRenter != null || delay == 0) {
+                metrics.recordRent(String.valueOf(lane.key), System.nanoTime() - start, false, tokenRenter != null);
+                return CompletableFuture.completedFuture(tokenRenter);
+            }
+        }
+
+        Waiter waiter = new Waiter(null, new CompletableFuture<>(), deadlineAfter(delay));
+        ScheduledFuture<?> timeoutTask = scheduler().schedule(() -> waiter.future.complete(null), delay, TimeUnit.MILLISECONDS);
+        waiter.future.whenComplete((tokenRenter, throwable) -> {
+            // 完成、超时或被取消后离开队列
+            timeoutTask.cancel(false);
+            metrics.recordRent(String.valueOf(lane.key), System.nanoTime() - start, true, tokenRenter != null);
+            if (lane.waiters.remove(waiter)) {
+                lane.signalHead();
+            }
+        });
+        lane.waiters.offer(waiter);
+        if (lane.waiters.peek() == waiter) {
+            lane.signalHead();
+        }
+        return waiter.future;
+    }
+
+    /**
+     * 在调度线程中为队首的异步租借依次尝试租借，队首是阻塞的线程时唤醒该线程
+     */
+    private void drain(Lane lane) {
+        lane.drainQueued.set(false);
+        Object savedLane = currentLane();
+        switchLane(lane.key);
+        try {
+            while (true) {
+                Waiter waiter = lane.waiters.peek();
+                if (waiter == null) return;
+                if (waiter.thread != null) {
+                    LockSupport.unpark(waiter.thread);
+                    return;
+                }
+                if (waiter.future.isDone()) {
+                    lane.waiters.remove(waiter);
+                    continue;
+                }
+                TokenRenter tokenRenter = rentNextTokenIfAvailable(lane);
+                if (tokenRenter == null) {
+                    // 到最早的token可用时再尝试，期间有token归还会被提前唤醒
+                    long earliest = lane.earliestAvailableTimestamp();
+                    if (lane.retryTask != null) {
+                        lane.retryTask.cancel(false);
+                    }
+                    lane.retryTask = earliest < waiter.deadline
+                            ? scheduler().schedule(lane::signalHead, Math.max(earliest - System.currentTimeMillis(), 1L), TimeUnit.MILLISECONDS)
+                            : null;
+                    return;
+                }
+                lane.waiters.remove(waiter);
+                if (!waiter.future.complete(tokenRenter)) {
+                    // 已被取消或超时
+                    tokenRenter.returnToken();
+                }
+            }
+        } finally {
+            switchLane(savedLane);
+        }
+    }
+
+    /**
+     * 快照中标识token的键，默认为token字符串形式的SHA-256摘要（快照文件中不保存token本身）
+     */
+    protected String snapshotKey(T token) {
+        return digest(String.valueOf(token));
+    }
+
+    protected static String digest(String value) {
+        try {
+            return DigestUtil.sha256Sum(value);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 写入子类在某个请求类型下的额外状态，调用时已切换到该请求类型且持有节点的锁
+     */
+    protected void writeLaneState(TokenNode node, DataOutput out) throws IOException {
+    }
+
+    /**
+     * 读取{@link #writeLaneState(TokenNode, DataOutput)}写入的状态，调用时已切换到该请求类型且持有节点的锁
+     */
+    protected void readLaneState(TokenNode node, DataInput in) throws IOException {
+    }
+
+    /**
+     * 将各token在各请求类型下的上次租借时间、冷却时间写入快照文件（先写临时文件再替换）
+     * @param file 快照文件
+     */
+    public void writeSnapshot(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                writeSnapshot(out);
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private void writeSnapshot(DataOutputStream out) throws IOException {
+        List<TokenNode> nodes = tokenNodes;
+        Map<Object, Lane> lanes = lanesMap();
+        ByteArrayOutputStream extra = new ByteArrayOutputStream();
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeInt(nodes.size());
+        Object savedLane = currentLane();
+        try {
+            for (TokenNode node : nodes) {
+                out.writeUTF(snapshotKey(node.getToken()));
+                out.writeInt(lanes.size());
+                synchronized (node) {
+                    for (Object lane : lanes.keySet()) {
+                        switchLane(lane);
+                        out.writeUTF(String.valueOf(lane));
+                        out.writeLong(node.getLastRentTimestamp());
+                        out.writeLong(node.getNextColdDownTimestamp());
+                        extra.reset();
+                        writeLaneState(node, new DataOutputStream(extra));
+                        out.writeInt(extra.size());
+                        extra.writeTo(out);
+                    }
+                }
+            }
+        } finally {
+            switchLane(savedLane);
+        }
+    }
+
+    /**
+     * 从快照文件恢复各token的状态，快照中还没有加入的token在之后刷新token列表时恢复
+     * <p>借出中的状态不保存，恢复后token都是空闲的；恢复的冷却时间即使超过租期上限也照常生效（如额度耗尽时等到重置时间）</p>
+     * @param file 快照文件
+     */
+    public void restoreSnapshot(Path file) throws IOException {
+        Map<String, Map<String, LaneState>> states = new LinkedHashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("not a token snapshot: " + file);
+            }
+            int nodeCount = in.readInt();
+            for (int i = 0; i < nodeCount; i++) {
+                String key = in.readUTF();
+                int laneCount = in.readInt();
+                Map<String, LaneState> laneStates = new HashMap<>();
+                for (int j = 0; j < laneCount; j++) {
+                    String lane = in.readUTF();
+                    long lastRentTimestamp = in.readLong();
+                    long nextColdDownTimestamp = in.readLong();
+                    byte[] extra = new byte[in.readInt()];
+                    in.readFully(extra);
+                    laneStates.put(lane, new LaneState(lastRentTimestamp, nextColdDownTimestamp, extra));
+                }
+                states.put(key, laneStates);
+            }
+        }
+        refreshLock.lock();
+        try {
+            for (TokenNode node : tokenNodes) {
+                Map<String, LaneState> laneStates = states.remove(snapshotKey(node.getToken()));
+                if (laneStates == null) continue;
+                synchronized (node) {
+                    if (!node.isRented()) {
+                        restoreNode(node, laneStates);
+                        rekey(node);
+                    }
+                }
+            }
+            pendingSnapshot.putAll(states);
+        } finally {
+            refreshLock.unlock();
+        }
+        signalWaiters();
+    }
+
+    /**
+     * 恢复节点在各请求类型下的状态，需持有节点的锁
+     */
+    private void restoreNode(TokenNode node, Map<String, LaneState> laneStates) {
+        if (laneStates == null) return;
+        Object savedLane = currentLane();
+        try {
+            for (Object lane : lanesMap().keySet()) {
+                LaneState state = laneStates.get(String.valueOf(lane));
+                if (state == null) continue;
+                switchLane(lane);
+                node.setLastRentTimestamp(state.lastRentTimestamp);
+                node.setNextColdDownTimestamp(state.nextColdDownTimestamp);
+                try {
+                    readLaneState(node, new DataInputStream(new ByteArrayInputStream(state.extra)));
+                } catch (IOException e) {
+                    LOG.warn("restore token state failed, token -> {}, lane -> {}", tokenName(node), lane, e);
+                }
+            }
+        } finally {
+            switchLane(savedLane);
+        }
+    }
+
+    /**
+     * 启用快照：立即从快照文件恢复（文件存在时），之后定期（在单独的快照线程中）和JVM关闭时写入快照文件
+     * <p>一般在第一次刷新token列表之后调用，之前调用时状态在token加入时恢复</p>
+     * @param file 快照文件
+     * @param interval 定期写入的间隔
+     */
+    public synchronized void enableSnapshots(Path file, Duration interval) {
+        disableSnapshots();
+        if (Files.exists(file)) {
+            try {
+                restoreSnapshot(file);
+            } catch (IOException e) {
+                LOG.warn("restore token snapshot failed, file -> {}", file, e);
+            }
+        }
+        snapshotFile = file;
+        long period = Math.max(interval.toMillis(), 1L);
+        snapshotTimer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "api-token-snapshot-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotTimer.scheduleAtFixedRate(this::writeSnapshotQuietly, period, period, TimeUnit.MILLISECONDS);
+        snapshotShutdownHook = new Thread(this::writeSnapshotQuietly, "api-token-snapshot");
+        Runtime.getRuntime().addShutdownHook(snapshotShutdownHook);
+    }
+
+    /**
+     * 停止定期写入快照，停止前写入最后一次
+     */
+    public synchronized void disableSnapshots() {
+        if (snapshotFile == null) return;
+        snapshotTimer.shutdownNow();
+        try {
+            Runtime.getRuntime().removeShutdownHook(snapshotShutdownHook);
+        } catch (IllegalStateException e) {
+            // JVM正在关闭，由关闭钩子写入
+            return;
+        }
+        writeSnapshotQuietly();
+        snapshotFile = null;
+        snapshotTimer = null;
+        snapshotShutdownHook = null;
+    }
+
+    private void writeSnapshotQuietly() {
+        Path file = snapshotFile;
+        if (file == null) return;
+        try {
+            writeSnapshot(file);
+        } catch (Exception e) {
+            LOG.warn("write token snapshot failed, file -> {}", file, e);
+        }
     }
 
     @SuppressWarnings("unused")
     public int getTokenSize() {
-        return this.tokenSize;
+        return tokenNodes.size();
+    }
+
+    /**
+     * @return 当前排队等待token的请求数（阻塞和异步）
+     */
+    public int getWaitingCount() {
+        int waiting = 0;
+        for (Lane lane : lanesMap().values()) {
+            waiting += lane.waiters.size();
+        }
+        return waiting;
+    }
+
+    /**
+     * @return 当前所有token节点（只读快照）
+     */
+    protected List<TokenNode> getTokenNodes() {
+        return tokenNodes;
+    }
+
+    /**
+     * 一种请求类型的排序跳表和等待队列
+     */
+    private final class Lane {
+        final Object key;
+        final ConcurrentSkipListSet<LaneEntry> entries = new ConcurrentSkipListSet<>();
+        final ConcurrentLinkedQueue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean drainQueued = new AtomicBoolean();
+        /**
+         * 只在调度线程中读写
+         */
+        ScheduledFuture<?> retryTask;
+
+        Lane(Object key) {
+            this.key = key;
+        }
+
+        long earliestAvailableTimestamp() {
+            Iterator<LaneEntry> iterator = entries.iterator();
+            return iterator.hasNext() ? iterator.next().availableTimestamp : Long.MAX_VALUE;
+        }
+
+        void signalHead() {
+            Waiter head = waiters.peek();
+            if (head == null) return;
+            if (head.thread != null) {
+                LockSupport.unpark(head.thread);
+            } else if (drainQueued.compareAndSet(false, true)) {
+                ScheduledThreadPoolExecutor executor = scheduler;
+                if (executor == null || executor.isShutdown()) {
+                    drainQueued.set(false);
+                    return;
+                }
+                executor.execute(() -> drain(this));
+            }
+        }
+    }
+
+    /**
+     * 排队等待token的阻塞线程（thread不为空）或异步租借（future不为空）
+     */
+    private final class Waiter {
+        final Thread thread;
+        final CompletableFuture<TokenRenter> future;
+        final long deadline;
+
+        Waiter(Thread thread, CompletableFuture<TokenRenter> future, long deadline) {
+            this.thread = thread;
+            this.future = future;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * token的租借状态，不可变，借出印记与借出时间通过一次CAS同时发布
+     */
+    private static final class Lease {
+        static final Lease IDLE = new Lease(0L, 0L);
+        /**
+         * 租借印记，偶数为空闲，奇数为借出，每次借出、归还、强制收回都会改变
+         */
+        final long stamp;
+        /**
+         * 本次借出的时间戳（空闲时为上次借出的时间戳）
+         */
+        final long timestamp;
+
+        Lease(long stamp, long timestamp) {
+            this.stamp = stamp;
+            this.timestamp = timestamp;
+        }
+
+        boolean isRented() {
+            return (stamp & 1L) != 0;
+        }
+    }
+
+    /**
+     * 快照中一个token在一种请求类型下的状态
+     */
+    private static final class LaneState {
+        final long lastRentTimestamp;
+        final long nextColdDownTimestamp;
+        final byte[] extra;
+
+        LaneState(long lastRentTimestamp, long nextColdDownTimestamp, byte[] extra) {
+            this.lastRentTimestamp = lastRentTimestamp;
+            this.nextColdDownTimestamp = nextColdDownTimestamp;
+            this.extra = extra;
+        }
     }
 
+    /**
+     * 通道中的一项，不可变，节点的可用时间变化时替换为新的一项
+     */
+    private final class LaneEntry implements Comparable<LaneEntry> {
+        final TokenNode node;
+        final long availableTimestamp;
+        final long sequence;
+
+        LaneEntry(TokenNode node, long availableTimestamp, long sequence) {
+            this.node = node;
+            this.availableTimestamp = availableTimestamp;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(LaneEntry other) {
+            int c = Long.compare(availableTimestamp, other.availableTimestamp);
+            return c != 0 ? c : Long.compare(sequence, other.sequence);
+        }
+    }
 
     /**
      * 内部队列使用的token节点
@@ -186,7 +911,13 @@ public abstract class AbstractApiTokenManager<T> {
         volatile long nextColdDownTimestamp = 0L; // 下次冷却的时间戳（冷却时间跟归还时间有关系）
         protected volatile T token;
         protected volatile int status = STATUS_IDLE;
-        volatile String rentSign = ""; // 出借签名
+        final AtomicReference<Lease> lease = new AtomicReference<>(Lease.IDLE);
+        final int id = nodeIds.incrementAndGet();
+        volatile boolean retired;
+        /**
+         * 节点在各通道中当前的一项，持有节点的锁时读写
+         */
+        transient final Map<Object, LaneEntry> laneEntries = new HashMap<>();
 
         protected TokenNode(T token) {
             this.token = token;
@@ -206,6 +937,9 @@ public abstract class AbstractApiTokenManager<T> {
         public long getLastRentTimestamp() {
             return lastRentTimestamp;
         }
+        boolean isRented() {
+            return lease.get().isRented();
+        }
     }
 
     /**
@@ -213,10 +947,15 @@ public abstract class AbstractApiTokenManager<T> {
      */
     public class TokenRenter {
         protected TokenNode tokenNode;
-        private final String rentSign; // 借出签名
-        protected TokenRenter(TokenNode tokenNode) {
+        private final long rentStamp; // 借出印记
+        private final Object lane; // 借出时的请求类型，归还时按该类型重置冷却时间
+        protected TokenRenter(TokenNode tokenNode, long rentStamp) {
             this.tokenNode = tokenNode;
-            this.rentSign = tokenNode.rentSign;
+            this.rentStamp = rentStamp;
+            this.lane = currentLane();
+        }
+        protected Object getLane() {
+            return lane;
         }
         public T getToken() {
             return tokenNode.getToken();
@@ -225,23 +964,39 @@ public abstract class AbstractApiTokenManager<T> {
          * 归还租借的token
          */
         public void giveBackToken() {
+            returnToken();
+        }
+        /**
+         * 子类覆盖giveBackToken()时，内部仍可通过该方法归还
+         */
+        private void returnToken() {
+            long heldMillis;
+            long cooldownMillis;
+            Object savedLane = currentLane();
+            switchLane(lane);
             try {
-                lock.lock();
-                if (!this.rentSign.equals(tokenNode.rentSign)) {
-                    // 已经因为超时而失效
-                    return;
+                synchronized (tokenNode) {
+                    Lease lease = tokenNode.lease.get();
+                    if (lease.stamp != rentStamp) {
+                        // 已经因为超时而失效
+                        return;
+                    }
+                    // 重置冷却时间
+                    resetNextColdDownTimestamp(tokenNode);
+                    if (!tokenNode.lease.compareAndSet(lease, new Lease(rentStamp + 1, lease.timestamp))) {
+                        return;
+                    }
+                    tokenNode.status = TokenNode.STATUS_IDLE;
+                    rekey(tokenNode);
+                    long now = System.currentTimeMillis();
+                    heldMillis = now - lease.timestamp;
+                    cooldownMillis = Math.max(tokenNode.getNextColdDownTimestamp() - now, 0L);
                 }
-                // 重置冷却时间
-                resetNextColdDownTimestamp(tokenNode);
-                rentedQueue.removeIf((node) -> {
-                    // 如果相等从借出记录的队列移到未借出队列
-                    return node != null && tokenEquals(node.token, this.tokenNode.token);
-                });
-                tokenQueue.offer(tokenNode);
-                tokenNode.status = TokenNode.STATUS_IDLE;
             } finally {
-                lock.unlock();
+                switchLane(savedLane);
             }
+            metrics.recordGiveBack(String.valueOf(lane), tokenName(tokenNode), heldMillis, cooldownMillis);
+            signalWaiters();
         }
     }
 
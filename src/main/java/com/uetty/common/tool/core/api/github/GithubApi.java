@@ -122,7 +122,7 @@ public class GithubApi {
             Integer remain = getIntHeader(responseHeaders, RESPONSE_HEAD_REMAIN);
             baseVo.setRateLimitRemain(remain != null ? remain : 0);
             Long reset = getLongHeader(responseHeaders, RESPONSE_HEAD_RESET);
-            baseVo.setRateLimitReset(reset != null ? reset : System.currentTimeMillis() + 10_000);
+            baseVo.setRateLimitReset(reset != null ? reset * 1000L : System.currentTimeMillis() + 10_000);
         }
     }
 
@@ -264,8 +264,8 @@ public class GithubApi {
             return vo;
         } finally {
             if (tokenRenter != null) {
-                tokenRenter.giveBackToken(vo != null ? vo.getRateLimitRemain() : Integer.valueOf(1),
-                        vo != null ? vo.getRateLimitReset() : Long.valueOf(0), vo != null ? vo.getRetryAfter() : null);
+                tokenRenter.giveBackToken(vo != null ? vo.getRateLimitLimit() : null, vo != null ? vo.getRateLimitRemain() : null,
+                        vo != null ? vo.getRateLimitReset() : null, vo != null ? vo.getRetryAfter() : null);
             }
         }
     }
@@ -341,8 +341,8 @@ public class GithubApi {
             return vo;
         } finally {
             if (tokenRenter != null) {
-                tokenRenter.giveBackToken(vo != null ? vo.getRateLimitRemain() : Integer.valueOf(1),
-                        vo != null ? vo.getRateLimitReset() : Long.valueOf(0), vo != null ? vo.getRetryAfter() : null);
+                tokenRenter.giveBackToken(vo != null ? vo.getRateLimitLimit() : null, vo != null ? vo.getRateLimitRemain() : null,
+                        vo != null ? vo.getRateLimitReset() : null, vo != null ? vo.getRetryAfter() : null);
             }
         }
     }
@@ -2,11 +2,21 @@ package com.uetty.common.tool.core.api.github;
 
 import com.uetty.common.tool.core.api.AbstractApiTokenManager;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
-import java.util.HashMap;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 public abstract class GithubTokenManager extends AbstractApiTokenManager<GithubToken> {
 
@@ -15,36 +25,111 @@ public abstract class GithubTokenManager extends AbstractApiTokenManager<GithubT
      */
     private static final long INTERVAL_AFTER_GIVEBACK = 1_000L;
     /**
-     * 两次请求之间至少需要间隔的时间（上次借出时间和本次借出时间的间隔）
+     * 两次请求之间至少需要间隔的时间（上次借出时间和本次借出时间的间隔），没有收到过限流响应头时使用
      */
     private static final long INTERVAL_BETWEEN_RENT = 5_000L;
+    /**
+     * 额度用完时，在重置时间之后再多等待的时间，避免本地与github的时钟误差
+     */
+    private static final long RESET_MARGIN = 1_000L;
 
     public enum RentType {
         SEARCH_CODE,
         SEARCH_CONETNT,
     }
 
-    public static class RateLimit implements Serializable {
-        Integer rateLimitRemain = 1;
-        Long rateLimitReset = 0L;
-        Integer retryAfter = 0;
-        private Integer getRateLimitRemain() {
-            return rateLimitRemain;
+    /**
+     * 一个token在一种请求类型下的请求额度（令牌桶）
+     * <p>额度由响应头X-RateLimit-Limit、X-RateLimit-Remaining、X-RateLimit-Reset补充，
+     * 剩余额度在重置时间之前均匀分配（而不是先集中用完再等待重置），以免触发github的二级限流（Retry-After）</p>
+     */
+    public static class RateBudget implements Serializable {
+        private volatile int limit = -1; // 重置后的额度，未知时为-1
+        private volatile int remaining = -1; // 重置时间之前的剩余次数，未知时为-1
+        private volatile long resetTimestamp = 0L; // 额度重置的时间戳
+        private volatile long retryAfterTimestamp = 0L; // 被标记为请求滥用时，之后才能再请求的时间戳
+        private volatile long interval = INTERVAL_BETWEEN_RENT; // 当前两次请求之间的间隔
+
+        /**
+         * 根据响应头更新额度
+         * @param limitLimit X-RateLimit-Limit
+         * @param limitRemain X-RateLimit-Remaining
+         * @param limitReset X-RateLimit-Reset，秒或毫秒
+         * @param retryAfter Retry-After，秒
+         */
+        synchronized void update(Integer limitLimit, Integer limitRemain, Long limitReset, Integer retryAfter, long now) {
+            if (retryAfter != null && retryAfter > 0) {
+                retryAfterTimestamp = now + retryAfter * 1000L;
+            }
+            if (limitReset == null || limitReset <= 0 || limitRemain == null) return;
+            // 响应头中是秒，小于1e11的按秒处理
+            resetTimestamp = limitReset < 100_000_000_000L ? limitReset * 1000L : limitReset;
+            remaining = Math.max(limitRemain, 0);
+            limit = Math.max(limitLimit != null ? limitLimit : limit, remaining + 1);
+        }
+
+        synchronized void write(DataOutput out) throws IOException {
+            out.writeInt(limit);
+            out.writeInt(remaining);
+            out.writeLong(resetTimestamp);
+            out.writeLong(retryAfterTimestamp);
+            out.writeLong(interval);
+        }
+
+        synchronized void read(DataInput in) throws IOException {
+            limit = in.readInt();
+            remaining = in.readInt();
+            resetTimestamp = in.readLong();
+            retryAfterTimestamp = in.readLong();
+            interval = in.readLong();
+        }
+
+        /**
+         * 计算下次可以借出的时间，同时更新当前的请求间隔
+         */
+        synchronized long nextRentTimestamp(long lastRentTimestamp, long now) {
+            long earliest = now + INTERVAL_AFTER_GIVEBACK;
+            if (retryAfterTimestamp > now) {
+                return Math.max(retryAfterTimestamp, earliest);
+            }
+            if (resetTimestamp <= now) {
+                // 已经过了重置时间（或没有收到过响应头），下次响应前按固定间隔
+                if (limit > 0) remaining = limit;
+                interval = INTERVAL_BETWEEN_RENT;
+                return Math.max(lastRentTimestamp + INTERVAL_BETWEEN_RENT, earliest);
+            }
+            if (remaining <= 0) {
+                interval = resetTimestamp + RESET_MARGIN - now;
+                return resetTimestamp + RESET_MARGIN;
+            }
+            // 剩余额度均匀分配到重置之前
+            interval = Math.max((resetTimestamp - now) / remaining, INTERVAL_AFTER_GIVEBACK);
+            return now + interval;
         }
-        private void setRateLimitRemain(Integer rateLimitRemain) {
-            this.rateLimitRemain = rateLimitRemain;
+
+        /**
+         * @return 重置后的额度，未知时为-1
+         */
+        public int getLimit() {
+            return limit;
         }
-        private Long getRateLimitReset() {
-            return rateLimitReset;
+        /**
+         * @return 重置之前的剩余次数（已过重置时间时为重置后的额度），未知时为-1
+         */
+        public int getRemaining() {
+            return resetTimestamp > System.currentTimeMillis() ? remaining : limit;
         }
-        private void setRateLimitReset(Long rateLimitReset) {
-            this.rateLimitReset = rateLimitReset;
+        public long getResetTimestamp() {
+            return resetTimestamp;
         }
-        private Integer getRetryAfter() {
-            return retryAfter;
+        public long getRetryAfterTimestamp() {
+            return retryAfterTimestamp;
         }
-        private void setRetryAfter(Integer retryAfter) {
-            this.retryAfter = retryAfter;
+        /**
+         * @return 当前两次请求之间的间隔（毫秒）
+         */
+        public long getInterval() {
+            return interval;
         }
     }
 
@@ -52,14 +137,13 @@ public abstract class GithubTokenManager extends AbstractApiTokenManager<GithubT
      * 覆盖TokenNode类，添加两个RateLimit参数目的，使其冷却时间可以根据多种请求类型分别计算
      */
     public class GithubTokenNode extends TokenNode implements Serializable {
-        volatile Map<RentType, RateLimit> rateLimitMap = new HashMap<>();
-        volatile Map<RentType, Long> lastRentTimestampMap = new HashMap<>();
-        volatile Map<RentType, Long> nextColdDownTimestampMap = new HashMap<>();
+        final Map<RentType, RateBudget> rateBudgetMap = new EnumMap<>(RentType.class);
+        volatile Map<RentType, Long> lastRentTimestampMap = new ConcurrentHashMap<>();
+        volatile Map<RentType, Long> nextColdDownTimestampMap = new ConcurrentHashMap<>();
         private GithubTokenNode(GithubToken token) {
             super(token);
-            RentType[] rentTypes = RentType.values();
-            for (RentType rentType : rentTypes) {
-                setRateLimit(rentType, new RateLimit());
+            for (RentType rentType : RentType.values()) {
+                rateBudgetMap.put(rentType, new RateBudget());
             }
         }
         public void setNextColdDownTimestamp(long nextColdDownTimestamp) {
@@ -80,11 +164,8 @@ public abstract class GithubTokenManager extends AbstractApiTokenManager<GithubT
             Long aLong = lastRentTimestampMap.get(rentType);
             return aLong != null ? aLong : 0L;
         }
-        private RateLimit getRateLimit(RentType rentType) {
-            return rateLimitMap.get(rentType);
-        }
-        private void setRateLimit(RentType rentType, RateLimit rateLimit) {
-            rateLimitMap.put(rentType, rateLimit);
+        public RateBudget getRateBudget(RentType rentType) {
+            return rateBudgetMap.get(rentType);
         }
     }
 
@@ -92,23 +173,29 @@ public abstract class GithubTokenManager extends AbstractApiTokenManager<GithubT
      * 覆盖TokenRenter类，其归还时增加两个几个参数
      */
     public class GithubTokenRenter extends TokenRenter {
-        private GithubTokenRenter(TokenNode tokenNode) {
-            super(tokenNode);
+        private GithubTokenRenter(TokenNode tokenNode, long rentStamp) {
+            super(tokenNode, rentStamp);
         }
         @Override
         @Deprecated
         public void giveBackToken() {
-            throw new UnsupportedOperationException("please use giveBackToken(Integer, Long, Integer)");
+            throw new UnsupportedOperationException("please use giveBackToken(Integer, Integer, Long, Integer)");
         }
         @SuppressWarnings("unused")
         public void giveBackToken(Integer limitRemain, Long limitReset, Integer retryAfter) {
-            RateLimit rateLimit = new RateLimit();
-            rateLimit.setRateLimitRemain(limitRemain);
-            rateLimit.setRateLimitReset(limitReset);
-            rateLimit.setRetryAfter(retryAfter);
-            RentType rentType = ThreadLocalHolder.rentType.get();
+            giveBackToken(null, limitRemain, limitReset, retryAfter);
+        }
+        /**
+         * 归还token，同时用响应头更新该token在借出时请求类型下的额度
+         * @param limitLimit X-RateLimit-Limit
+         * @param limitRemain X-RateLimit-Remaining
+         * @param limitReset X-RateLimit-Reset
+         * @param retryAfter Retry-After（秒）
+         */
+        public void giveBackToken(Integer limitLimit, Integer limitRemain, Long limitReset, Integer retryAfter) {
+            RentType rentType = (RentType) getLane(); // 借出时的请求类型，归还可以在其他线程
             GithubTokenNode tokenNode = (GithubTokenNode) this.tokenNode;
-            tokenNode.setRateLimit(rentType, rateLimit);
+            tokenNode.getRateBudget(rentType).update(limitLimit, limitRemain, limitReset, retryAfter, System.currentTimeMillis());
             super.giveBackToken();
         }
     }
@@ -123,33 +210,72 @@ public abstract class GithubTokenManager extends AbstractApiTokenManager<GithubT
     }
 
     @Override
-    protected TokenRenter newTokenRenter(TokenNode node) {
-        return new GithubTokenRenter(node);
+    protected TokenRenter newTokenRenter(TokenNode node, long rentStamp) {
+        return new GithubTokenRenter(node, rentStamp);
+    }
+
+    @Override
+    protected String snapshotKey(GithubToken token) {
+        return digest(token.getToken());
+    }
+
+    /**
+     * 快照中保存各请求类型的请求额度
+     */
+    @Override
+    protected void writeLaneState(TokenNode node, DataOutput out) throws IOException {
+        ((GithubTokenNode) node).getRateBudget(ThreadLocalHolder.rentType.get()).write(out);
+    }
+
+    @Override
+    protected void readLaneState(TokenNode node, DataInput in) throws IOException {
+        ((GithubTokenNode) node).getRateBudget(ThreadLocalHolder.rentType.get()).read(in);
+    }
+
+    @Override
+    protected String tokenName(TokenNode node) {
+        Integer id = node.getToken().getId();
+        return id != null ? "github-" + id : super.tokenName(node);
+    }
+
+    /**
+     * 每种请求类型的冷却时间分别计算，各自排序
+     */
+    @Override
+    protected Collection<?> lanes() {
+        return Arrays.asList(RentType.values());
+    }
+
+    @Override
+    protected Object currentLane() {
+        return ThreadLocalHolder.rentType.get();
+    }
+
+    @Override
+    protected void switchLane(Object lane) {
+        ThreadLocalHolder.rentType.set((RentType) lane);
     }
 
     @Override
     protected void resetNextColdDownTimestamp(TokenNode tokenNode) {
         GithubTokenNode githubTokenNode = (GithubTokenNode) tokenNode;
         RentType rentType = ThreadLocalHolder.rentType.get();
-        RateLimit rateLimit = githubTokenNode.getRateLimit(rentType); // 根据请求类型，获取请求数量限制信息
-
-        long currentTimeMillis = System.currentTimeMillis();
-        Integer retryAfter = rateLimit.getRetryAfter();
-        if (retryAfter != null && retryAfter > 0) { // 上次请求被github标记为请求滥用
-            tokenNode.setNextColdDownTimestamp(currentTimeMillis + retryAfter);
-            return;
-        }
-
-        long lastRentTimestamp = tokenNode.getLastRentTimestamp();
-        long resetTimestamp = rateLimit.getRateLimitReset() != null ? rateLimit.getRateLimitReset() : 0L;
+        RateBudget rateBudget = githubTokenNode.getRateBudget(rentType); // 根据请求类型，获取请求额度
+        long nextColdDownTimestamp = rateBudget.nextRentTimestamp(tokenNode.getLastRentTimestamp(), System.currentTimeMillis());
+        tokenNode.setNextColdDownTimestamp(nextColdDownTimestamp);
+    }
 
-        long nextColdDownTimestamp = Math.max(lastRentTimestamp + INTERVAL_BETWEEN_RENT,
-                currentTimeMillis + INTERVAL_AFTER_GIVEBACK);
-        int currentRateLimitRemain = rateLimit.getRateLimitRemain() != null ? rateLimit.getRateLimitRemain() : 1; // 重置时间之前的剩余次数
-        if (currentRateLimitRemain <= 0 || (resetTimestamp > 0 && resetTimestamp < nextColdDownTimestamp)) {
-            nextColdDownTimestamp = resetTimestamp;
+    /**
+     * 各token在各请求类型下的请求额度
+     * @return token -> (请求类型 -> 请求额度)
+     */
+    public Map<GithubToken, Map<RentType, RateBudget>> getRateBudgets() {
+        Map<GithubToken, Map<RentType, RateBudget>> budgets = new LinkedHashMap<>();
+        for (TokenNode tokenNode : getTokenNodes()) {
+            GithubTokenNode githubTokenNode = (GithubTokenNode) tokenNode;
+            budgets.put(githubTokenNode.getToken(), Collections.unmodifiableMap(githubTokenNode.rateBudgetMap));
         }
-        tokenNode.setNextColdDownTimestamp(nextColdDownTimestamp);
+        return budgets;
     }
 
     @Override
@@ -174,4 +300,21 @@ public abstract class GithubTokenManager extends AbstractApiTokenManager<GithubT
         return (GithubTokenRenter) super.tryGetAvailableToken(delay);
     }
 
+    @Override
+    @Deprecated
+    public CompletableFuture<TokenRenter> rentAsync(Duration timeout) {
+        throw new UnsupportedOperationException("please use rentAsync(Duration, RentType)");
+    }
+
+    public CompletableFuture<GithubTokenRenter> rentAsync(Duration timeout, RentType rentType) {
+        ThreadLocalHolder.rentType.set(rentType);
+        CompletableFuture<TokenRenter> future = super.rentAsync(timeout);
+        CompletableFuture<GithubTokenRenter> result = future.thenApply(tokenRenter -> (GithubTokenRenter) tokenRenter);
+        // 取消时同时放弃排队
+        result.whenComplete((tokenRenter, throwable) -> {
+            if (result.isCancelled()) future.cancel(false);
+        });
+        return result;
+    }
+
 }
@@ -0,0 +1,251 @@
+package com.uetty.common.tool.core.api.metrics;
+
+import com.uetty.common.tool.core.api.AbstractApiTokenManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * token池统计的默认实现，绑定时注册为平台MBeanServer中的MXBean
+ * <p>ObjectName为 com.uetty.common.tool.core.api:type=TokenPool,name=&lt;名称&gt;，名称默认取token池的类名</p>
+ * <p>只弱引用token池，token池未关闭就被回收时，下次读取属性时自动注销</p>
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class JmxTokenPoolMetrics implements TokenPoolMetrics, TokenPoolMXBean {
+    private static final Logger LOG = LoggerFactory.getLogger(JmxTokenPoolMetrics.class);
+
+    private static final String DOMAIN = "com.uetty.common.tool.core.api";
+    private static final double NANOS_PER_MILLI = 1_000_000D;
+    private static final double MICROS_PER_MILLI = 1_000D;
+
+    private final String name;
+    private volatile WeakReference<AbstractApiTokenManager<?>> manager;
+    private volatile ObjectName objectName;
+
+    /**
+     * 租借耗时，微秒
+     */
+    private final LatencyHistogram rentLatency = new LatencyHistogram();
+    /**
+     * 排队等待过的租借耗时，微秒
+     */
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+    /**
+     * 冷却时长，毫秒
+     */
+    private final LatencyHistogram cooldown = new LatencyHistogram();
+    private final LongAdder rentTimeouts = new LongAdder();
+    private final Map<String, LongAdder> heldMillis = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> forcedReclaims = new ConcurrentHashMap<>();
+    private final LongAdder refreshCount = new LongAdder();
+    private final AtomicLong lastRefreshNanos = new AtomicLong();
+    private final AtomicLong maxRefreshNanos = new AtomicLong();
+    private volatile long sinceTimestamp = System.currentTimeMillis();
+
+    /**
+     * @param name MBean名称，为空时绑定时取token池的类名
+     */
+    public JmxTokenPoolMetrics(String name) {
+        this.name = name;
+    }
+
+    public JmxTokenPoolMetrics() {
+        this(null);
+    }
+
+    @Override
+    public void bind(AbstractApiTokenManager<?> manager) {
+        this.manager = new WeakReference<>(manager);
+        String beanName = name != null ? name
+                : manager.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(manager));
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=TokenPool,name=" + ObjectName.quote(beanName));
+            server.registerMBean(this, objectName);
+            this.objectName = objectName;
+        } catch (Exception e) {
+            LOG.warn("register token pool mbean failed, name -> {}", beanName, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        ObjectName objectName = this.objectName;
+        this.objectName = null;
+        this.manager = null;
+        if (objectName == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (Exception e) {
+            LOG.warn("unregister token pool mbean failed, name -> {}", objectName, e);
+        }
+    }
+
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    @Override
+    public void recordRent(String lane, long latencyNanos, boolean waited, boolean acquired) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+        rentLatency.record(micros);
+        if (waited) {
+            waitTime.record(micros);
+        }
+        if (!acquired) {
+            rentTimeouts.increment();
+        }
+    }
+
+    @Override
+    public void recordGiveBack(String lane, String token, long heldMillis, long cooldownMillis) {
+        this.heldMillis.computeIfAbsent(token, k -> new LongAdder()).add(heldMillis);
+        cooldown.record(cooldownMillis);
+    }
+
+    @Override
+    public void recordForcedReclaim(String lane, String token, long heldMillis) {
+        this.heldMillis.computeIfAbsent(token, k -> new LongAdder()).add(heldMillis);
+        forcedReclaims.computeIfAbsent(token, k -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void recordRefresh(long durationNanos, int tokenSize) {
+        refreshCount.increment();
+        lastRefreshNanos.set(durationNanos);
+        maxRefreshNanos.accumulateAndGet(durationNanos, Math::max);
+    }
+
+    /**
+     * @return 绑定的token池，已被回收时注销MBean并返回空
+     */
+    private AbstractApiTokenManager<?> manager() {
+        WeakReference<AbstractApiTokenManager<?>> reference = this.manager;
+        if (reference == null) return null;
+        AbstractApiTokenManager<?> manager = reference.get();
+        if (manager == null) {
+            close();
+        }
+        return manager;
+    }
+
+    @Override
+    public int getTokenSize() {
+        AbstractApiTokenManager<?> manager = manager();
+        return manager != null ? manager.getTokenSize() : 0;
+    }
+
+    @Override
+    public int getWaiting() {
+        AbstractApiTokenManager<?> manager = manager();
+        return manager != null ? manager.getWaitingCount() : 0;
+    }
+
+    @Override
+    public long getRentCount() {
+        return rentLatency.getCount();
+    }
+
+    @Override
+    public long getRentTimeoutCount() {
+        return rentTimeouts.sum();
+    }
+
+    @Override
+    public Map<Long, Long> getRentLatencyHistogramMicros() {
+        return rentLatency.buckets();
+    }
+
+    @Override
+    public Map<String, Double> getRentLatencyPercentilesMillis() {
+        return percentiles(rentLatency, MICROS_PER_MILLI);
+    }
+
+    @Override
+    public Map<String, Double> getWaitTimePercentilesMillis() {
+        return percentiles(waitTime, MICROS_PER_MILLI);
+    }
+
+    @Override
+    public Map<String, Double> getCooldownPercentilesMillis() {
+        return percentiles(cooldown, 1D);
+    }
+
+    @Override
+    public Map<String, Double> getTokenUtilization() {
+        long elapsed = Math.max(System.currentTimeMillis() - sinceTimestamp, 1L);
+        Map<String, Double> utilization = new LinkedHashMap<>();
+        for (Map.Entry<String, LongAdder> entry : heldMillis.entrySet()) {
+            utilization.put(entry.getKey(), Math.min(entry.getValue().sum() / (double) elapsed, 1D));
+        }
+        return utilization;
+    }
+
+    @Override
+    public long getForcedReclaimCount() {
+        long total = 0;
+        for (LongAdder adder : forcedReclaims.values()) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public Map<String, Long> getForcedReclaims() {
+        Map<String, Long> reclaims = new LinkedHashMap<>();
+        for (Map.Entry<String, LongAdder> entry : forcedReclaims.entrySet()) {
+            reclaims.put(entry.getKey(), entry.getValue().sum());
+        }
+        return reclaims;
+    }
+
+    @Override
+    public long getRefreshCount() {
+        return refreshCount.sum();
+    }
+
+    @Override
+    public double getLastRefreshMillis() {
+        return lastRefreshNanos.get() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMaxRefreshMillis() {
+        return maxRefreshNanos.get() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public void reset() {
+        rentLatency.reset();
+        waitTime.reset();
+        cooldown.reset();
+        rentTimeouts.reset();
+        heldMillis.clear();
+        forcedReclaims.clear();
+        refreshCount.reset();
+        lastRefreshNanos.set(0);
+        maxRefreshNanos.set(0);
+        sinceTimestamp = System.currentTimeMillis();
+    }
+
+    private static Map<String, Double> percentiles(LatencyHistogram histogram, double unitsPerMilli) {
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        percentiles.put("p50", histogram.percentile(0.5) / unitsPerMilli);
+        percentiles.put("p90", histogram.percentile(0.9) / unitsPerMilli);
+        percentiles.put("p99", histogram.percentile(0.99) / unitsPerMilli);
+        percentiles.put("p999", histogram.percentile(0.999) / unitsPerMilli);
+        percentiles.put("max", histogram.getMax() / unitsPerMilli);
+        percentiles.put("mean", histogram.getMean() / unitsPerMilli);
+        return percentiles;
+    }
+}
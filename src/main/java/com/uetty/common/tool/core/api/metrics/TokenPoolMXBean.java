@@ -0,0 +1,64 @@
+package com.uetty.common.tool.core.api.metrics;
+
+import java.util.Map;
+
+/**
+ * token池的JMX视图，百分位的键为p50、p90、p99、p999、max、mean
+ */
+@SuppressWarnings("unused")
+public interface TokenPoolMXBean {
+
+    int getTokenSize();
+
+    /**
+     * @return 当前排队等待token的请求数
+     */
+    int getWaiting();
+
+    long getRentCount();
+
+    /**
+     * @return 超时未租借到token的次数
+     */
+    long getRentTimeoutCount();
+
+    /**
+     * @return 租借耗时（微秒）的分布：桶上界 -> 数量
+     */
+    Map<Long, Long> getRentLatencyHistogramMicros();
+
+    Map<String, Double> getRentLatencyPercentilesMillis();
+
+    /**
+     * @return 排队等待过的租借的等待时间百分位
+     */
+    Map<String, Double> getWaitTimePercentilesMillis();
+
+    /**
+     * @return 归还后冷却时长的百分位
+     */
+    Map<String, Double> getCooldownPercentilesMillis();
+
+    /**
+     * @return 各token借出时长占统计时长的比例
+     */
+    Map<String, Double> getTokenUtilization();
+
+    long getForcedReclaimCount();
+
+    /**
+     * @return 各token被强制收回的次数
+     */
+    Map<String, Long> getForcedReclaims();
+
+    long getRefreshCount();
+
+    double getLastRefreshMillis();
+
+    double getMaxRefreshMillis();
+
+    /**
+     * 清空统计，重新开始计时
+     */
+    void reset();
+}
@@ -0,0 +1,66 @@
+package com.uetty.common.tool.core.api.metrics;
+
+import com.uetty.common.tool.core.api.AbstractApiTokenManager;
+
+/**
+ * token池的统计接口，由{@link AbstractApiTokenManager}在租借、归还、强制收回、刷新时回调
+ * <p>回调在租借、归还的线程中同步执行，实现需要足够轻量且线程安全；默认实现为{@link JmxTokenPoolMetrics}</p>
+ */
+public interface TokenPoolMetrics {
+
+    /**
+     * 不做任何统计
+     */
+    TokenPoolMetrics NONE = new TokenPoolMetrics() {
+    };
+
+    /**
+     * 绑定到token池，设置到token池时调用
+     * @param manager token池
+     */
+    default void bind(AbstractApiTokenManager<?> manager) {
+    }
+
+    /**
+     * 一次租借结束（成功或超时）
+     * @param lane 请求类型
+     * @param latencyNanos 从调用到拿到结果的耗时
+     * @param waited 是否排队等待过（没有立即拿到token）
+     * @param acquired 是否租借成功
+     */
+    default void recordRent(String lane, long latencyNanos, boolean waited, boolean acquired) {
+    }
+
+    /**
+     * 一次归还
+     * @param lane 借出时的请求类型
+     * @param token token名称
+     * @param heldMillis 借出的时长
+     * @param cooldownMillis 归还后到下次可用的冷却时长
+     */
+    default void recordGiveBack(String lane, String token, long heldMillis, long cooldownMillis) {
+    }
+
+    /**
+     * 借出超过租期上限未归还，被强制收回
+     * @param lane 重新借出时的请求类型
+     * @param token token名称
+     * @param heldMillis 被收回前借出的时长
+     */
+    default void recordForcedReclaim(String lane, String token, long heldMillis) {
+    }
+
+    /**
+     * 一次刷新token列表
+     * @param durationNanos 刷新耗时
+     * @param tokenSize 刷新后的token数量
+     */
+    default void recordRefresh(long durationNanos, int tokenSize) {
+    }
+
+    /**
+     * 从token池解除，替换为其他统计实现时调用
+     */
+    default void close() {
+    }
+}